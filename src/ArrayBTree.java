@@ -0,0 +1,212 @@
+import static java.lang.Integer.parseInt;
+
+/**
+ * The insert and delete of BTree, LongBTree and GenericBTree, whose nodes are ArrayBTreeNodes.
+ * Insert and delete climb down the tree once, splitting full children and filling children
+ * with t-1 keys on the way, so the same keys inserted and deleted in the same order give
+ * the same layout in all of them.
+ * <p>
+ * The key of the current insert or delete is kept by the subclass, which sets it before calling
+ * insert or delete, and compares it with the key in a given index of a node. The type of the keys
+ * never appears here, so primitive keys are never boxed, and the subclass's public methods take
+ * the keys in their own type. A tree is written by one thread at a time.
+ *
+ * @param <N> the type of the nodes.
+ */
+public abstract class ArrayBTree<N extends ArrayBTreeNode<N>> {
+
+    //FIELDS
+
+    /**
+     * The t constant of the tree.
+     */
+    private final int T_VAR;
+    /**
+     * The root of the tree.
+     */
+    private N root;
+
+    /**
+     * Constructs an empty tree.
+     *
+     * @param tVal the value of the tree's constant.
+     */
+    protected ArrayBTree(String tVal) {
+        T_VAR = parseInt(tVal);
+        root = createNode(T_VAR);
+    }
+
+    /**
+     * Creates an empty leaf. Called by the constructor, so it may only use given t.
+     *
+     * @param t the tree's constant.
+     * @return the new node.
+     */
+    abstract N createNode(int t);
+
+    /**
+     * Finds the index of the first key in a node which is not smaller than the written key,
+     * which is also the index of the child the key would be in.
+     *
+     * @param node the node.
+     * @return the index of the first key not smaller than the written key, or n if there is none.
+     */
+    abstract int findIndexOfWrittenKey(N node);
+
+    /**
+     * Compares the key in given index of a node with the written key.
+     *
+     * @param node the node.
+     * @param i    the index of the key.
+     * @return a negative number, zero or a positive number if the key in the index
+     * is smaller, equal or greater than the written key.
+     */
+    abstract int compareWrittenKey(N node, int i);
+
+    /**
+     * Inserts the written key in given index of a node, moving the keys after it one place right.
+     *
+     * @param node the node.
+     * @param i    the index to insert the key in.
+     */
+    abstract void insertWrittenKey(N node, int i);
+
+    /**
+     * Makes the key in given index of a node the written key. Case 2 of delete copies a key
+     * from a leaf over the deleted key, and then goes on to delete the copied key from the leaf.
+     *
+     * @param node the node.
+     * @param i    the index of the key.
+     */
+    abstract void setWrittenKey(N node, int i);
+
+    public N getRoot() {
+        return root;
+    }
+
+    public int getT() {
+        return T_VAR;
+    }
+
+    /**
+     * Checks if the key in given index of a node is equal to the written key.
+     *
+     * @param node the node.
+     * @param i    the index of the key, which may be n.
+     * @return true if there is a key in the index and it is equal to the written key, otherwise false.
+     */
+    private boolean keyEquals(N node, int i) {
+        return i < node.getN() && compareWrittenKey(node, i) == 0;
+    }
+
+    /**
+     * Replaces the root of the tree, which insert and delete change.
+     *
+     * @param root the new root.
+     */
+    void replaceRoot(N root) {
+        this.root = root;
+    }
+
+    /**
+     * Inserts the written key into the root and splitting the roots if it is full.
+     */
+    void insert() {
+        if (root.getN() == 2 * T_VAR - 1) {
+            N newRoot = createNode(T_VAR);
+            newRoot.setLeaf(false);
+            newRoot.setChild(0, root);
+            newRoot.splitChild(0);
+            newRoot.subtreeChanged();
+            root = newRoot;
+        }
+        N node = root;
+        node.addToSubtree(1);
+        while (!node.isLeaf()) {
+            int i = findIndexOfWrittenKey(node);
+            if (node.getChild(i).getN() == 2 * T_VAR - 1) {
+                node.splitChild(i);
+                // A key equal to the median goes left, since only the left child was checked for being full.
+                if (compareWrittenKey(node, i) < 0) {
+                    i++;
+                }
+            }
+            node = node.getWritableChild(i);
+            node.addToSubtree(1);
+        }
+        insertWrittenKey(node, findIndexOfWrittenKey(node));
+    }
+
+    /**
+     * Deletes the written key from the tree, making sure while climbing down the tree
+     * that every child it descends to has at least t keys.
+     *
+     * @return true if the key was deleted, otherwise false.
+     */
+    boolean delete() {
+        boolean deleted = delete(root);
+        if (!root.isLeaf() && root.getN() == 0) {
+            root = root.getChild(0);
+        }
+        return deleted;
+    }
+
+    /**
+     * Sub method of delete that deletes the written key from the subtree of given node,
+     * which has at least t keys or is the root.
+     *
+     * @param node the root of the subtree.
+     * @return true if the key was deleted, false if it is not in the subtree.
+     */
+    private boolean delete(N node) {
+        int i = findIndexOfWrittenKey(node);
+        boolean keyExist = keyEquals(node, i);
+        boolean deleted;
+        if (node.isLeaf()) {
+            if (keyExist) { //CASE 3
+                node.removeKey(i);
+            }
+            deleted = keyExist;
+        }
+        else {
+            N child;
+            if (keyExist) { //CASE 2
+                if (node.getChild(i).getN() >= T_VAR) {
+                    child = node.getWritableChild(i);
+                    N leaf = child.findMaxLeaf();
+                    node.copyKey(leaf, leaf.getN() - 1, i);
+                    setWrittenKey(node, i);
+                }
+                else if (node.getChild(i + 1).getN() >= T_VAR) {
+                    child = node.getWritableChild(i + 1);
+                    N leaf = child.findMinLeaf();
+                    node.copyKey(leaf, 0, i);
+                    setWrittenKey(node, i);
+                }
+                else {
+                    node.mergeChildren(i);
+                    child = node.getChild(i);
+                }
+            }
+            else if (node.getChild(i).getN() < T_VAR) { //CASE 1
+                child = node.handleCase1(i);
+            }
+            else {
+                child = node.getWritableChild(i);
+            }
+            deleted = delete(child);
+        }
+        if (deleted) {
+            node.addToSubtree(-1);
+        }
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        if (root.getN() == 0) {
+            return "";
+        }
+        return root.toString();
+    }
+}
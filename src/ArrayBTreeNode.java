@@ -0,0 +1,384 @@
+import java.util.Arrays;
+
+/**
+ * The part of a node of an ArrayBTree which doesn't depend on the type of the keys: the children,
+ * and the moves of keys and children between nodes when a child is split, borrows a key from
+ * a sibling or is merged with one. A subclass keeps the keys in an array of it's own type, possibly
+ * a primitive one, and compares them; the keys are moved here only by copyKeys, which copies them
+ * with System.arraycopy, so they are never boxed.
+ * <p>
+ * A subclass may keep more per key or per subtree, like the values and subtree sizes of BTreeNode,
+ * by overriding copyKeys, subtreeChanged and addToSubtree, and may copy it's nodes on write
+ * by overriding getWritableChild.
+ *
+ * @param <N> the type of the nodes.
+ */
+public abstract class ArrayBTreeNode<N extends ArrayBTreeNode<N>> {
+    //FIELDS
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * Array of pointers to the nodes children
+     */
+    private final N[] children;
+    /**
+     * The number of keys in node.
+     */
+    private int n;
+    private boolean isLeaf;
+
+    /**
+     * creates a new node which is a leaf.
+     *
+     * @param t        the parameter of the tree
+     * @param children an empty array of 2t children.
+     */
+    protected ArrayBTreeNode(int t, N[] children) {
+        this.T_VAR = t;
+        this.children = children;
+        isLeaf = true;
+        n = 0;
+    }
+
+    /**
+     * Gets the array of the keys of the node, which has 2t-1 places.
+     *
+     * @return the keys array.
+     */
+    abstract Object getKeyArray();
+
+    /**
+     * Creates an empty leaf of the same tree.
+     *
+     * @return the new node.
+     */
+    abstract N createNode();
+
+    /**
+     * Clears the places of removed keys, so the node doesn't keep them from being collected.
+     *
+     * @param from the index of the first place to clear.
+     * @param to   the index after the last place to clear.
+     */
+    abstract void clearKeys(int from, int to);
+
+    /**
+     * Appends the key in given index to a string builder.
+     *
+     * @param sb the string builder.
+     * @param i  the index of the key.
+     */
+    abstract void appendKey(StringBuilder sb, int i);
+
+    /**
+     * Copies keys of given node to this node. The node may be this node.
+     * A subclass that keeps more for each key copies it here as well.
+     *
+     * @param source the node to copy from.
+     * @param from   the index of the first key to copy.
+     * @param to     the index to copy the first key to.
+     * @param count  the amount of keys to copy.
+     */
+    void copyKeys(N source, int from, int to, int count) {
+        System.arraycopy(source.getKeyArray(), from, getKeyArray(), to, count);
+    }
+
+    /**
+     * Gets the child in given index so that it can be changed. Every child is changed only
+     * after it is taken by this method, so a subclass may replace it with a copy first.
+     *
+     * @param i index in the children array
+     * @return the node located in this index
+     */
+    N getWritableChild(int i) {
+        return getChild(i);
+    }
+
+    /**
+     * Called after a split, a borrow or a merge moved keys into or out of the subtree of this node.
+     * Does nothing, unless a subclass counts the keys in every subtree.
+     */
+    void subtreeChanged() {
+    }
+
+    /**
+     * Called on every node on the path of an insert or a delete, with the amount of keys added
+     * to the subtree of the node. Does nothing, unless a subclass counts the keys in every subtree.
+     *
+     * @param amount the amount of keys added, which is negative if keys were deleted.
+     */
+    void addToSubtree(int amount) {
+    }
+
+    // Getters and Setters
+
+    public boolean isLeaf() {
+        return isLeaf;
+    }
+
+    public void setLeaf(boolean leaf) {
+        isLeaf = leaf;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public void setN(int n) {
+        this.n = n;
+    }
+
+    /**
+     * outputs the node in a specified index
+     *
+     * @param i index in the children array
+     * @return the node located in this index
+     */
+    public N getChild(int i) {
+        if (i < 0 || i > n) {
+            throw new IllegalArgumentException("Index: " + i + "," + " n: " + n);
+        }
+        return children[i];
+    }
+
+    /**
+     * Sets the pointer in given index of the children array to given node.
+     *
+     * @param i    the index of the child to set.
+     * @param node the new node to set the child pointer to.
+     */
+    public void setChild(int i, N node) {
+        if (i < 0 || i > n + 1) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+        }
+        children[i] = node;
+    }
+
+    /**
+     * Copies children of given node to this node. The node may be this node.
+     *
+     * @param source the node to copy from.
+     * @param from   the index of the first child to copy.
+     * @param to     the index to copy the first child to.
+     * @param count  the amount of children to copy.
+     */
+    void copyChildren(N source, int from, int to, int count) {
+        ArrayBTreeNode<N> node = source;
+        System.arraycopy(node.children, from, children, to, count);
+    }
+
+    /**
+     * Clears the children in a range of indexes, so they can be garbage collected.
+     *
+     * @param from the first index to clear.
+     * @param to   the index after the last one to clear.
+     */
+    void clearChildren(int from, int to) {
+        Arrays.fill(children, from, to, null);
+    }
+
+    //KEYS
+
+    /**
+     * Makes room for a key in given index, moving the keys after it one place right.
+     * The caller puts the key in the index.
+     *
+     * @param i the index of the new key.
+     */
+    void openKey(int i) {
+        copyKeys(self(), i, i + 1, n - i);
+        n++;
+    }
+
+    /**
+     * Removes the key in given index, moving the keys after it one place left.
+     *
+     * @param i the index of the key to remove.
+     */
+    void removeKey(int i) {
+        copyKeys(self(), i + 1, i, n - i - 1);
+        clearKeys(n - 1, n);
+        n--;
+    }
+
+    /**
+     * Copies a key of given node over the key in given index of this node.
+     *
+     * @param source      the node to copy the key from.
+     * @param sourceIndex the index of the key in the source.
+     * @param index       the index to copy the key to.
+     */
+    void copyKey(N source, int sourceIndex, int index) {
+        copyKeys(source, sourceIndex, index, 1);
+    }
+
+    //INSERT
+
+    /**
+     * Splits the full child in given index to 2 children, and puts the middle key
+     * of the child between the 2 pointers to the new children.
+     *
+     * @param index the index of the child to split.
+     */
+    void splitChild(int index) {
+        N fullChild = getWritableChild(index);
+        N newNode = createNode();
+        ArrayBTreeNode<N> splitChild = fullChild;
+        ArrayBTreeNode<N> newChild = newNode;
+        newChild.isLeaf = splitChild.isLeaf;
+        newChild.copyKeys(fullChild, T_VAR, 0, T_VAR - 1);
+        newChild.n = T_VAR - 1;
+        if (!splitChild.isLeaf) {
+            newChild.copyChildren(fullChild, T_VAR, 0, T_VAR);
+            splitChild.clearChildren(T_VAR, 2 * T_VAR);
+        }
+        openKey(index);
+        copyKey(fullChild, T_VAR - 1, index);
+        System.arraycopy(children, index + 1, children, index + 2, n - index - 1);
+        children[index + 1] = newNode;
+        splitChild.clearKeys(T_VAR - 1, 2 * T_VAR - 1);
+        splitChild.n = T_VAR - 1;
+        splitChild.subtreeChanged();
+        newChild.subtreeChanged();
+    }
+
+    //DELETE
+
+    /**
+     * Makes sure the child in given index, which has t-1 keys, gets another key:
+     * takes one through this node from a sibling with at least t keys (case 1a),
+     * or merges the child with a sibling (case 1b). The right sibling is chosen first.
+     *
+     * @param index the index of the child.
+     * @return the node that now holds the child's keys.
+     */
+    N handleCase1(int index) {
+        if (index < n && children[index + 1].getN() >= T_VAR) {
+            N childNode = getWritableChild(index);
+            N rightNode = getWritableChild(index + 1);
+            ArrayBTreeNode<N> child = childNode;
+            ArrayBTreeNode<N> right = rightNode;
+            child.openKey(child.n);
+            child.copyKey(self(), index, child.n - 1);
+            if (!child.isLeaf) {
+                child.children[child.n] = right.children[0];
+                System.arraycopy(right.children, 1, right.children, 0, right.n);
+                right.children[right.n] = null;
+            }
+            copyKey(rightNode, 0, index);
+            right.removeKey(0);
+            child.subtreeChanged();
+            right.subtreeChanged();
+            return childNode;
+        }
+        if (index > 0 && children[index - 1].getN() >= T_VAR) {
+            N childNode = getWritableChild(index);
+            N leftNode = getWritableChild(index - 1);
+            ArrayBTreeNode<N> child = childNode;
+            ArrayBTreeNode<N> left = leftNode;
+            child.openKey(0);
+            child.copyKey(self(), index - 1, 0);
+            if (!child.isLeaf) {
+                System.arraycopy(child.children, 0, child.children, 1, child.n);
+                child.children[0] = left.children[left.n];
+                left.children[left.n] = null;
+            }
+            copyKey(leftNode, left.n - 1, index - 1);
+            left.removeKey(left.n - 1);
+            child.subtreeChanged();
+            left.subtreeChanged();
+            return childNode;
+        }
+        if (index < n) {
+            mergeChildren(index);
+            return children[index];
+        }
+        mergeChildren(index - 1);
+        return children[index - 1];
+    }
+
+    /**
+     * Merges the child in given index with the child to it's right, in place of the left
+     * one, with the key between them as the median. The right child is only read.
+     *
+     * @param index the index of the left child.
+     */
+    void mergeChildren(int index) {
+        N leftNode = getWritableChild(index);
+        N rightNode = children[index + 1];
+        ArrayBTreeNode<N> left = leftNode;
+        int leftN = left.n;
+        int rightN = rightNode.getN();
+        left.copyKeys(self(), index, leftN, 1);
+        left.copyKeys(rightNode, 0, leftN + 1, rightN);
+        if (!left.isLeaf) {
+            left.copyChildren(rightNode, 0, leftN + 1, rightN + 1);
+        }
+        left.n = leftN + rightN + 1;
+        removeKey(index);
+        System.arraycopy(children, index + 2, children, index + 1, n - index);
+        children[n + 1] = null;
+        left.subtreeChanged();
+    }
+
+    /**
+     * Finds the leaf holding the max key in the subtree of this node, which is it's last key.
+     */
+    N findMaxLeaf() {
+        N current = self();
+        while (!current.isLeaf()) {
+            current = current.getChild(current.getN());
+        }
+        return current;
+    }
+
+    /**
+     * Finds the leaf holding the min key in the subtree of this node, which is it's first key.
+     */
+    N findMinLeaf() {
+        N current = self();
+        while (!current.isLeaf()) {
+            current = current.getChild(0);
+        }
+        return current;
+    }
+
+    /**
+     * Gets this node as the type of the nodes, which every subclass is.
+     */
+    @SuppressWarnings("unchecked")
+    private N self() {
+        return (N) this;
+    }
+
+    //toString
+    @Override
+    public String toString() {
+        String toString = toString(new StringBuilder(), 0).toString();
+        return toString.substring(0, toString.length() - 1);
+    }
+
+    /**
+     * Sub method of toString that builds the string representation
+     * of the subtree recursively.
+     *
+     * @param sb    an accumulator that collects the subtree's toStrings
+     * @param depth the depth of the current subtree.
+     * @return a string visually representing the subtree.
+     */
+    private StringBuilder toString(StringBuilder sb, int depth) {
+        for (int i = 0; i <= getN(); i++) {
+            if (!isLeaf()) {
+                ArrayBTreeNode<N> child = getChild(i);
+                sb = child.toString(sb, depth + 1);
+            }
+            if (i < getN()) {
+                appendKey(sb, i);
+                sb.append("_").append(depth).append(",");
+            }
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,145 @@
+import java.util.Iterator;
+
+import static java.lang.Integer.parseInt;
+
+/**
+ * A B+ tree variant of BTree. All keys are kept in the leaves, which are chained
+ * from left to right, while internal nodes hold only separators. This lets range
+ * and prefix scans walk the leaves sequentially after a single descent.
+ */
+public class BPlusTree implements Iterable<String> {
+
+    //FIELDS
+
+    /**
+     * The t constant of the tree.
+     */
+    private final int T_VAR;
+    /**
+     * The root of the tree.
+     */
+    private BPlusTreeNode root;
+
+    //GETTERS AND SETTERS
+
+    /**
+     * Constructs an empty BPlusTree.
+     *
+     * @param tVal the value of the tree's constant.
+     */
+    public BPlusTree(String tVal) {
+        T_VAR = parseInt(tVal);
+        root = new BPlusTreeNode(T_VAR);
+    }
+
+    public BPlusTreeNode getRoot() {
+        return root;
+    }
+
+    public void setRoot(BPlusTreeNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Receives a key and inserts it into the tree, splitting the root first if it is full.
+     *
+     * @param key the key to insert to the tree.
+     */
+    public void insert(String key) {
+        if (getRoot().getN() == 2 * T_VAR - 1) {
+            BPlusTreeNode newRoot = new BPlusTreeNode(T_VAR);
+            newRoot.setLeaf(false);
+            newRoot.setChild(0, getRoot());
+            newRoot.splitChild(0);
+            setRoot(newRoot);
+        }
+        getRoot().insert(key.toLowerCase());
+    }
+
+    /**
+     * Inserts all keys from txt file in given path to the tree.
+     *
+     * @param path the path from which to read the keys.
+     */
+    public void createFullTree(String path) {
+        LinkedList<String> passwordsList = UsefulFunctions.createStringListFromFile(path);
+        if (passwordsList != null) {
+            for (String password : passwordsList) {
+                insert(password);
+            }
+        }
+    }
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        return getRoot().findLeaf(key.toLowerCase()).keyExist(key.toLowerCase());
+    }
+
+    /**
+     * Deletes given key from the tree, if it is in the tree.
+     *
+     * @param key the key to delete.
+     * @return true if the key was deleted, otherwise false.
+     */
+    public boolean delete(String key) {
+        boolean deleted = getRoot().delete(key.toLowerCase());
+        if (!getRoot().isLeaf() && getRoot().getN() == 0) {
+            setRoot(getRoot().getChild(0));
+        }
+        return deleted;
+    }
+
+    //SCANS
+
+    /**
+     * Iterates in order over all keys between from and to, both included.
+     *
+     * @param from the first key of the range.
+     * @param to   the last key of the range.
+     * @return an iterator over the keys in the range.
+     */
+    public Iterator<String> rangeScan(String from, String to) {
+        String lowFrom = from.toLowerCase();
+        BPlusTreeNode leaf = getRoot().findLeaf(lowFrom);
+        return new BPlusTreeIterator(leaf, leaf.lowerBound(lowFrom), to.toLowerCase(), null);
+    }
+
+    /**
+     * Iterates in order over all keys starting with given prefix.
+     *
+     * @param prefix the prefix of the keys.
+     * @return an iterator over the keys with the prefix.
+     */
+    public Iterator<String> prefixScan(String prefix) {
+        String lowPrefix = prefix.toLowerCase();
+        BPlusTreeNode leaf = getRoot().findLeaf(lowPrefix);
+        return new BPlusTreeIterator(leaf, leaf.lowerBound(lowPrefix), null, lowPrefix);
+    }
+
+    /**
+     * Iterates in order over all keys in the tree.
+     *
+     * @return an iterator over the keys.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new BPlusTreeIterator(getRoot().findFirstLeaf(), 0, null, null);
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "";
+        }
+        return getRoot().toString();
+    }
+
+    private boolean isEmpty() {
+        return root.getN() == 0;
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class BPlusTreeIterator implements Iterator<String> {
+    /**
+     * The leaf holding the next key to return.
+     */
+    private BPlusTreeNode leaf;
+    /**
+     * The index of the next key in the leaf.
+     */
+    private int index;
+    /**
+     * The last key to return, or null if the scan is not bounded from above.
+     */
+    private final String to;
+    /**
+     * The prefix every returned key starts with, or null if the scan is not a prefix scan.
+     */
+    private final String prefix;
+
+    /**
+     * Constructs an iterator that walks the leaves chain from given position.
+     *
+     * @param leaf   the leaf to start from.
+     * @param index  the index of the first key in the leaf.
+     * @param to     the last key to return, or null.
+     * @param prefix the prefix the returned keys start with, or null.
+     */
+    public BPlusTreeIterator(BPlusTreeNode leaf, int index, String to, String prefix) {
+        this.leaf = leaf;
+        this.index = index;
+        this.to = to;
+        this.prefix = prefix;
+        skipEmptyLeaves();
+    }
+
+    /**
+     * Checks if the iterator has more keys in the range.
+     *
+     * @return true if there is a next key, otherwise false.
+     */
+    @Override
+    public boolean hasNext() {
+        if (leaf == null) {
+            return false;
+        }
+        String key = leaf.getKey(index);
+        return (to == null || key.compareTo(to) <= 0) && (prefix == null || key.startsWith(prefix));
+    }
+
+    /**
+     * Advances the iterator to the next key while returning the current one.
+     *
+     * @return the current key.
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String next = leaf.getKey(index);
+        index++;
+        skipEmptyLeaves();
+        return next;
+    }
+
+    /**
+     * Moves to the next leaf while the current position is past the end of it's leaf.
+     */
+    private void skipEmptyLeaves() {
+        while (leaf != null && index >= leaf.getN()) {
+            leaf = leaf.getNext();
+            index = 0;
+        }
+    }
+}
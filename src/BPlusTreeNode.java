@@ -0,0 +1,451 @@
+public class BPlusTreeNode {
+    //FIELDS
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * Array of the keys stored in the node. In a leaf these are the tree's keys,
+     * in an internal node these are separators, each one being greater than every key
+     * of the subtree to it's left, and smaller or equal to every key of the subtree to it's right.
+     */
+    private final String[] keys;
+    /**
+     * Array of pointers to the nodes children
+     */
+    private final BPlusTreeNode[] children;
+    /**
+     * The leaf to the right of this leaf, or null if this is the last leaf.
+     */
+    private BPlusTreeNode next;
+    /**
+     * The number of keys in node.
+     */
+    private int n;
+    private boolean isLeaf;
+
+    /**
+     * creates a new node which is a leaf, and creates the children and keys arrays with the t inserted
+     *
+     * @param t the parameter of the tree
+     */
+    public BPlusTreeNode(int t) {
+        this.T_VAR = t;
+        isLeaf = true;
+        keys = new String[2 * t - 1];
+        children = new BPlusTreeNode[2 * t];
+        n = 0;
+    }
+
+    // Getters and Setters
+
+    public boolean isLeaf() {
+        return isLeaf;
+    }
+
+    public void setLeaf(boolean leaf) {
+        isLeaf = leaf;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public void setN(int n) {
+        this.n = n;
+    }
+
+    public BPlusTreeNode getNext() {
+        return next;
+    }
+
+    /**
+     * Gets the key in given index in the keys array.
+     *
+     * @param i the index of the key to get.
+     * @return a String with the key.
+     */
+    public String getKey(int i) {
+        if (i < 0 || i >= n) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+        }
+        return keys[i];
+    }
+
+    /**
+     * outputs the node in a specified index
+     *
+     * @param i index in the children array
+     * @return the node located in this index
+     */
+    public BPlusTreeNode getChild(int i) {
+        if (i < 0 || i > n || isLeaf) {
+            throw new IllegalArgumentException("Index: " + i + "," + " n: " + n);
+        }
+        return children[i];
+    }
+
+    /**
+     * Sets the pointer in given index of the children array to given node.
+     *
+     * @param i    the index of the child to set.
+     * @param node the new node to set the child pointer to.
+     */
+    public void setChild(int i, BPlusTreeNode node) {
+        if (i < 0 || i > n + 1) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+        }
+        children[i] = node;
+    }
+
+    //SEARCH
+
+    /**
+     * Finds the index of the first key in this node that is not smaller than given key.
+     *
+     * @param key the key this searches for.
+     * @return the index of key, or the one it would have if it was in the keys array.
+     */
+    int lowerBound(String key) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the index of the child whose subtree may hold given key.
+     * Since every separator is smaller or equal to the keys to it's right, this is the amount
+     * of separators that are smaller or equal to the key.
+     *
+     * @param key the key this searches for.
+     * @return the index of the child to descend to.
+     */
+    int findChildIndex(String key) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) <= 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the leaf in the subtree of this node in which given key is, or should be.
+     *
+     * @param key the key to search for.
+     * @return the leaf of the key.
+     */
+    public BPlusTreeNode findLeaf(String key) {
+        BPlusTreeNode current = this;
+        while (!current.isLeaf) {
+            current = current.children[current.findChildIndex(key)];
+        }
+        return current;
+    }
+
+    /**
+     * Finds the leftmost leaf in the subtree of this node.
+     *
+     * @return the leaf with the smallest keys.
+     */
+    public BPlusTreeNode findFirstLeaf() {
+        BPlusTreeNode current = this;
+        while (!current.isLeaf) {
+            current = current.children[0];
+        }
+        return current;
+    }
+
+    /**
+     * Checks if a key is in this leaf.
+     *
+     * @param key to check if the key exists in the node
+     * @return true - if it exists in the node and false otherwise.
+     */
+    public boolean keyExist(String key) {
+        int i = lowerBound(key);
+        return i < n && keys[i].equals(key);
+    }
+
+    // INSERT METHODS
+
+    /**
+     * Inserts given key to it's place in the subtree of this node,
+     * splitting every full child before descending into it.
+     *
+     * @param key the key to insert.
+     */
+    public void insert(String key) {
+        BPlusTreeNode current = this;
+        while (!current.isLeaf) {
+            int i = current.findChildIndex(key);
+            if (current.children[i].n == 2 * T_VAR - 1) {
+                current.splitChild(i);
+                if (key.compareTo(current.keys[i]) >= 0) {
+                    i++;
+                }
+            }
+            current = current.children[i];
+        }
+        current.insertToKeysArray(key);
+    }
+
+    /**
+     * Sub method of insert that inserts a key to this nodes keys array.
+     *
+     * @param key the key to insert.
+     */
+    private void insertToKeysArray(String key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        int i = lowerBound(key);
+        System.arraycopy(keys, i, keys, i + 1, n - i);
+        keys[i] = key;
+        n++;
+    }
+
+    /**
+     * Splits the full child in given index to 2 children.
+     * A split leaf keeps t-1 keys, gives t keys to the new leaf, and the shortest
+     * separator between the two leaves moves up (see shortestSeparator).
+     * A split internal node keeps t-1 keys, gives t-1 keys to the new node,
+     * and it's median key moves up to become the separator.
+     *
+     * @param index the index of the child to split.
+     */
+    void splitChild(int index) {
+        BPlusTreeNode splitChild = children[index];
+        BPlusTreeNode newChild = new BPlusTreeNode(T_VAR);
+        newChild.isLeaf = splitChild.isLeaf;
+        String separator;
+        if (splitChild.isLeaf) {
+            newChild.n = T_VAR;
+            System.arraycopy(splitChild.keys, T_VAR - 1, newChild.keys, 0, T_VAR);
+            separator = shortestSeparator(splitChild.keys[T_VAR - 2], newChild.keys[0]);
+            newChild.next = splitChild.next;
+            splitChild.next = newChild;
+        }
+        else {
+            newChild.n = T_VAR - 1;
+            System.arraycopy(splitChild.keys, T_VAR, newChild.keys, 0, T_VAR - 1);
+            System.arraycopy(splitChild.children, T_VAR, newChild.children, 0, T_VAR);
+            separator = splitChild.keys[T_VAR - 1];
+            clear(splitChild.children, T_VAR, 2 * T_VAR);
+        }
+        clear(splitChild.keys, T_VAR - 1, 2 * T_VAR - 1);
+        splitChild.n = T_VAR - 1;
+
+        System.arraycopy(keys, index, keys, index + 1, n - index);
+        System.arraycopy(children, index + 1, children, index + 2, n - index);
+        keys[index] = separator;
+        children[index + 1] = newChild;
+        n++;
+    }
+
+    /**
+     * Finds the shortest separator between two consecutive leaves, which is the shortest
+     * prefix of the right leaf's first key that is greater than the left leaf's last key.
+     * Truncating the separators keeps the internal nodes small when the keys share long prefixes.
+     *
+     * @param leftMax  the last key of the left leaf.
+     * @param rightMin the first key of the right leaf.
+     * @return the separator.
+     */
+    static String shortestSeparator(String leftMax, String rightMin) {
+        int length = 0;
+        int common = Math.min(leftMax.length(), rightMin.length());
+        while (length < common && leftMax.charAt(length) == rightMin.charAt(length)) {
+            length++;
+        }
+        return rightMin.substring(0, Math.min(length + 1, rightMin.length()));
+    }
+
+    //DELETE
+
+    /**
+     * Deletes given key from the subtree of this node, and fixes every child
+     * left with less than t-1 keys on the way back up.
+     *
+     * @param key the key to delete.
+     * @return true if the key was found and deleted, otherwise false.
+     */
+    public boolean delete(String key) {
+        if (isLeaf) {
+            int i = lowerBound(key);
+            if (i == n || !keys[i].equals(key)) {
+                return false;
+            }
+            removeKey(i);
+            return true;
+        }
+        int i = findChildIndex(key);
+        boolean deleted = children[i].delete(key);
+        if (children[i].n < T_VAR - 1) {
+            fixChild(i);
+        }
+        return deleted;
+    }
+
+    /**
+     * Fixes the child in given index that has less than t-1 keys, by borrowing
+     * a key from a sibling with more than t-1 keys, or merging it with a sibling.
+     *
+     * @param index the index of the child to fix.
+     */
+    private void fixChild(int index) {
+        if (index > 0 && children[index - 1].n > T_VAR - 1) {
+            borrowFromLeft(index);
+        }
+        else if (index < n && children[index + 1].n > T_VAR - 1) {
+            borrowFromRight(index);
+        }
+        else if (index > 0) {
+            mergeChildren(index - 1);
+        }
+        else {
+            mergeChildren(index);
+        }
+    }
+
+    /**
+     * Moves the last key of the left sibling of the child in given index to the child.
+     *
+     * @param index the index of the child.
+     */
+    private void borrowFromLeft(int index) {
+        BPlusTreeNode child = children[index];
+        BPlusTreeNode sibling = children[index - 1];
+        System.arraycopy(child.keys, 0, child.keys, 1, child.n);
+        if (child.isLeaf) {
+            child.keys[0] = sibling.keys[sibling.n - 1];
+            keys[index - 1] = shortestSeparator(sibling.keys[sibling.n - 2], child.keys[0]);
+        }
+        else {
+            System.arraycopy(child.children, 0, child.children, 1, child.n + 1);
+            child.keys[0] = keys[index - 1];
+            child.children[0] = sibling.children[sibling.n];
+            keys[index - 1] = sibling.keys[sibling.n - 1];
+            sibling.children[sibling.n] = null;
+        }
+        child.n++;
+        sibling.removeKey(sibling.n - 1);
+    }
+
+    /**
+     * Moves the first key of the right sibling of the child in given index to the child.
+     *
+     * @param index the index of the child.
+     */
+    private void borrowFromRight(int index) {
+        BPlusTreeNode child = children[index];
+        BPlusTreeNode sibling = children[index + 1];
+        if (child.isLeaf) {
+            child.keys[child.n] = sibling.keys[0];
+            child.n++;
+            sibling.removeKey(0);
+            keys[index] = shortestSeparator(child.keys[child.n - 1], sibling.keys[0]);
+        }
+        else {
+            child.keys[child.n] = keys[index];
+            child.children[child.n + 1] = sibling.children[0];
+            child.n++;
+            keys[index] = sibling.keys[0];
+            System.arraycopy(sibling.children, 1, sibling.children, 0, sibling.n);
+            sibling.children[sibling.n] = null;
+            sibling.removeKey(0);
+        }
+    }
+
+    /**
+     * Merges the child in given index with the child to it's right, in place of the left one.
+     * Merged internal nodes take the separator between them as their median,
+     * merged leaves drop it and unlink the right leaf from the leaves chain.
+     *
+     * @param index the index of the left child.
+     */
+    private void mergeChildren(int index) {
+        BPlusTreeNode left = children[index];
+        BPlusTreeNode right = children[index + 1];
+        if (left.isLeaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+            left.n += right.n;
+            left.next = right.next;
+        }
+        else {
+            left.keys[left.n] = keys[index];
+            System.arraycopy(right.keys, 0, left.keys, left.n + 1, right.n);
+            System.arraycopy(right.children, 0, left.children, left.n + 1, right.n + 1);
+            left.n += right.n + 1;
+        }
+        System.arraycopy(children, index + 2, children, index + 1, n - index - 1);
+        children[n] = null;
+        removeKey(index);
+    }
+
+    /**
+     * Removes the key in given index from this node's keys array.
+     *
+     * @param index the index of the key to remove.
+     */
+    private void removeKey(int index) {
+        System.arraycopy(keys, index + 1, keys, index, n - index - 1);
+        n--;
+        keys[n] = null;
+    }
+
+    /**
+     * Sets a range of an array to null, so the removed elements can be collected.
+     */
+    private static void clear(Object[] array, int from, int to) {
+        for (int i = from; i < to; i++) {
+            array[i] = null;
+        }
+    }
+
+    //toString
+    @Override
+    public String toString() {
+        String toString = toString(new StringBuilder(), 0).toString();
+        return toString.substring(0, toString.length() - 1);
+    }
+
+    /**
+     * Sub method of toString that builds the string representation
+     * of the subtree recursively.
+     *
+     * @param sb    an accumulator that collects the subtree's toStrings
+     * @param depth the depth of the current subtree.
+     * @return a string visually representing the subtree.
+     */
+    private StringBuilder toString(StringBuilder sb, int depth) {
+        if (isLeaf()) {
+            for (int i = 0; i < getN(); i++) {
+                sb.append(getKey(i)).append("_").append(depth).append(",");
+            }
+            return sb;
+        }
+        for (int i = 0; i <= getN(); i++) {
+            sb = getChild(i).toString(sb, depth + 1);
+            if (i < getN()) {
+                sb.append(getKey(i)).append("_").append(depth).append(",");
+            }
+        }
+        return sb;
+    }
+}
@@ -1,17 +1,69 @@
-import static java.lang.Integer.parseInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class BTree {
+/**
+ * A BTree of lowercase String keys. Insert and delete are the ones of ArrayBTree, which keeps
+ * the root the write operations change; this tree adds the values of a map, subtree sizes for
+ * rank and select, a copy-on-write mode, lazy deletes and batched searches and deletes.
+ */
+public class BTree extends ArrayBTree<BTreeNode> {
 
     //FIELDS
 
     /**
-     * The t constant of the tree.
+     * The root of the last version published by a write operation.
+     * Used only in copy-on-write mode, in which readers search this version.
      */
-    private final int T_VAR;
+    private volatile BTreeNode snapshot;
     /**
-     * The root of the tree.
+     * Whether write operations copy the nodes they change instead of changing them.
      */
-    private BTreeNode root;
+    private final boolean copyOnWrite;
+    /**
+     * Serializes the write operations.
+     */
+    private final Object writeLock = new Object();
+    /**
+     * The current write operation, owning the nodes it created or copied.
+     * Always null if the tree is not in copy-on-write mode.
+     */
+    private Object owner;
+    /**
+     * The keys deleted lazily, which are still in the nodes until they are compacted.
+     * Null if the tree deletes keys right away.
+     */
+    private final NavigableSet<String> tombstones;
+    /**
+     * The amount of tombstones, since the size of the sorted set is not counted in constant time.
+     */
+    private final AtomicInteger tombstonesAmount = new AtomicInteger();
+    /**
+     * The amount of tombstones from which a delete starts a background compaction.
+     */
+    private final int compactionThreshold;
+    /**
+     * Whether a background compaction was started and has not finished yet.
+     */
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    /**
+     * A cursor reused by put, which is only used while holding the write lock.
+     */
+    private final BTreeCursor writeCursor = new BTreeCursor();
+    /**
+     * The key of the current insert or delete, and the value inserted with it,
+     * which are only used while holding the write lock.
+     */
+    private String writtenKey;
+    private Object writtenValue;
 
     //GETTERS AND SETTERS
 
@@ -21,16 +73,116 @@ public class BTree {
      * @param tVal the value of the tree's constant.
      */
     public BTree(String tVal) {
-        T_VAR = parseInt(tVal);
-        root = new BTreeNode(T_VAR);
+        this(tVal, false);
+    }
+
+    /**
+     * Constructs an empty BTree, optionally in copy-on-write mode.
+     * In copy-on-write mode insert and delete copy every node they change along the path
+     * from the root, and then publish the new root at once. A reader that took the root from
+     * getRoot keeps searching an unchanging version of the tree without any locks, and old
+     * versions are garbage collected once no reader holds their root.
+     *
+     * @param tVal        the value of the tree's constant.
+     * @param copyOnWrite whether the tree is in copy-on-write mode.
+     */
+    public BTree(String tVal, boolean copyOnWrite) {
+        super(tVal);
+        this.copyOnWrite = copyOnWrite;
+        tombstones = null;
+        compactionThreshold = 0;
+        setRoot(super.getRoot());
+    }
+
+    /**
+     * Constructs an empty BTree in copy-on-write mode that deletes keys lazily.
+     * Delete only marks the key as a tombstone, without changing any node, and searches and scans
+     * skip the tombstones. Once there are compactionThreshold tombstones, a delete starts a background
+     * thread that removes them from the nodes with deleteAll, while readers keep searching the last
+     * published version. The layout returned by toString includes the tombstones until they are compacted.
+     *
+     * @param tVal                the value of the tree's constant.
+     * @param compactionThreshold the amount of tombstones from which they are compacted.
+     */
+    public BTree(String tVal, int compactionThreshold) {
+        super(tVal);
+        if (compactionThreshold < 1) {
+            throw new IllegalArgumentException("Compaction threshold: " + compactionThreshold);
+        }
+        copyOnWrite = true;
+        tombstones = new ConcurrentSkipListSet<>();
+        this.compactionThreshold = compactionThreshold;
+        setRoot(super.getRoot());
     }
 
+    /**
+     * Constructs a BTree holding given keys, built bottom-up by bulkLoad.
+     *
+     * @param tVal       the value of the tree's constant.
+     * @param keys       the keys to load, preferably sorted.
+     * @param fillFactor the part of each node's 2t-1 key slots to fill, between 0 and 1.
+     */
+    public BTree(String tVal, String[] keys, double fillFactor) {
+        this(tVal);
+        bulkLoad(keys, fillFactor);
+    }
+
+    /**
+     * Gets the root of the tree. In copy-on-write mode this is the root of the last published
+     * version, which is never changed afterwards.
+     *
+     * @return the root of the tree.
+     */
+    @Override
     public BTreeNode getRoot() {
-        return root;
+        return copyOnWrite ? snapshot : super.getRoot();
     }
 
     public void setRoot(BTreeNode root) {
-        this.root = root;
+        synchronized (writeLock) {
+            replaceRoot(root);
+            snapshot = copyOnWrite ? root : null;
+            if (tombstones != null) {
+                for (String key : tombstones) {
+                    removeTombstone(key);
+                }
+            }
+        }
+    }
+
+    public boolean isCopyOnWrite() {
+        return copyOnWrite;
+    }
+
+    /**
+     * Gets the amount of keys deleted lazily and not compacted yet.
+     *
+     * @return the amount of tombstones, or 0 if the tree deletes keys right away.
+     */
+    public int getTombstonesAmount() {
+        return tombstonesAmount.get();
+    }
+
+    /**
+     * Removes a key from the tombstones, and counts it if it was there.
+     *
+     * @param key the lowercase key.
+     */
+    private void removeTombstone(String key) {
+        if (tombstones.remove(key)) {
+            tombstonesAmount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Checks if a lowercase key was deleted lazily. Readers must check this before taking
+     * the root, since a compaction publishes the root before it removes the tombstones.
+     *
+     * @param key the lowercase key to check.
+     * @return true if the key is a tombstone, otherwise false.
+     */
+    private boolean isTombstone(String key) {
+        return tombstones != null && tombstones.contains(key);
     }
 
     /**
@@ -39,28 +191,83 @@ public class BTree {
      * @param key the key to insert to the tree.
      */
     public void insert(String key) {
-        if (getRoot().getN() == 2 * T_VAR - 1) {
-            splitRoot();
+        String lowKey = key.toLowerCase();
+        synchronized (writeLock) {
+            if (tombstones != null) {
+                //A key with a tombstone may still be in the nodes, and then it only has to be revived without it's value
+                if (tombstones.contains(lowKey)) {
+                    put(lowKey, null);
+                    return;
+                }
+                if (super.getRoot().search(lowKey, null)) {
+                    return;
+                }
+            }
+            beginWrite();
+            insertEntry(lowKey, null);
+            endWrite();
         }
-        getRoot().insert(key.toLowerCase());
     }
 
     /**
-     * Splitting the root by creating 2 nodes and copy the median to the node destined to be the new root.
-     * Copying the second half of the keys and children to the second node created.
-     * Creating two pointers from the new root to the other noes and update their values.
+     * Starts a write operation. In copy-on-write mode the operation gets a new owner,
+     * and works on a copy of the published root.
      */
-    private void splitRoot() {
-        BTreeNode oldRoot = getRoot();
-        BTreeNode rightChild = oldRoot.createNodeForSplit(oldRoot);
+    private void beginWrite() {
+        if (copyOnWrite) {
+            owner = new Object();
+            replaceRoot(snapshot.copy(owner));
+        }
+    }
 
-        if (!oldRoot.isLeaf()) {
-            oldRoot.transferChildren(oldRoot, rightChild);
+    /**
+     * Ends a write operation. In copy-on-write mode the changed root is published.
+     */
+    private void endWrite() {
+        if (copyOnWrite) {
+            snapshot = super.getRoot();
+            owner = null;
         }
+    }
 
-        BTreeNode newRoot = createNewRoot(rightChild);
-        oldRoot.setN(T_VAR - 1);
-        setRoot(newRoot);
+    /**
+     * Sub method of insert and put that inserts a lowercase key with given value in a write operation,
+     * by the insert of ArrayBTree.
+     *
+     * @param key   the key to insert.
+     * @param value the value of the key, or null.
+     */
+    private void insertEntry(String key, Object value) {
+        writtenKey = key;
+        writtenValue = value;
+        insert();
+        writtenKey = null;
+        writtenValue = null;
+    }
+
+    @Override
+    BTreeNode createNode(int t) {
+        return new BTreeNode(t, owner);
+    }
+
+    @Override
+    int findIndexOfWrittenKey(BTreeNode node) {
+        return node.findExpectedIndexOfKey(writtenKey);
+    }
+
+    @Override
+    int compareWrittenKey(BTreeNode node, int i) {
+        return node.getKey(i).compareTo(writtenKey);
+    }
+
+    @Override
+    void insertWrittenKey(BTreeNode node, int i) {
+        node.insertKey(i, writtenKey, writtenValue);
+    }
+
+    @Override
+    void setWrittenKey(BTreeNode node, int i) {
+        writtenKey = node.getKey(i);
     }
 
     /**
@@ -71,23 +278,400 @@ public class BTree {
      * and the second element being the index of the key in the node.
      */
     public OrderedPair search(String key) {
-        return getRoot().search(key.toLowerCase());
+        String lowKey = key.toLowerCase();
+        if (isTombstone(lowKey)) {
+            return null;
+        }
+        return getRoot().search(lowKey);
+    }
+
+    /**
+     * Searches a given key in the tree without allocating, and points given
+     * cursor to it's position if it was found.
+     *
+     * @param key    the key to search.
+     * @param cursor a reusable cursor to fill with the key's node and index.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean search(String key, BTreeCursor cursor) {
+        String lowKey = key.toLowerCase();
+        if (isTombstone(lowKey)) {
+            if (cursor != null) {
+                cursor.reset();
+            }
+            return false;
+        }
+        return getRoot().search(lowKey, cursor);
+    }
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        String lowKey = key.toLowerCase();
+        return !isTombstone(lowKey) && getRoot().search(lowKey, null);
+    }
+
+    /**
+     * Searches a batch of keys in a single walk of the tree. The batch is sorted, and then the
+     * keys that fall into the same subtree share the descent to it, so every node is visited
+     * at most once per batch.
+     *
+     * @param keys the keys to search.
+     * @return a bitmap in which bit i is set if keys[i] is in the tree.
+     */
+    public BitSet searchAll(String[] keys) {
+        BitSet deleted = findTombstones(keys);
+        String[] sortedKeys = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedKeys[i] = keys[i].toLowerCase();
+        }
+        Arrays.sort(sortedKeys);
+        boolean[] found = new boolean[keys.length];
+        getRoot().searchAll(sortedKeys, 0, sortedKeys.length, found);
+
+        BitSet results = new BitSet(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (found[Arrays.binarySearch(sortedKeys, keys[i].toLowerCase())]) {
+                results.set(i);
+            }
+        }
+        results.andNot(deleted);
+        return results;
+    }
+
+    /**
+     * Searches a batch of keys in parallel on all cores, by splitting the batch into chunks
+     * searched by fork/join tasks. The tree must not be changed during the search,
+     * unless it is in copy-on-write mode.
+     *
+     * @param keys the keys to search.
+     * @return a bitmap in which bit i is set if keys[i] is in the tree.
+     */
+    public BitSet searchAllParallel(String[] keys) {
+        BitSet deleted = findTombstones(keys);
+        boolean[] found = new boolean[keys.length];
+        ForkJoinPool.commonPool().invoke(new ParallelSearchTask(getRoot(), keys, 0, keys.length, found));
+        BitSet results = new BitSet(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (found[i]) {
+                results.set(i);
+            }
+        }
+        results.andNot(deleted);
+        return results;
+    }
+
+    /**
+     * Finds which of given keys are tombstones.
+     *
+     * @param keys the keys to check.
+     * @return a bitmap in which bit i is set if keys[i] is a tombstone.
+     */
+    private BitSet findTombstones(String[] keys) {
+        BitSet deleted = new BitSet(keys.length);
+        if (tombstones != null && !tombstones.isEmpty()) {
+            for (int i = 0; i < keys.length; i++) {
+                if (tombstones.contains(keys[i].toLowerCase())) {
+                    deleted.set(i);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Runs a parallel search of keys from txt file in given path and gets the time
+     * took for the search.
+     *
+     * @param path the path of the txt file to read the keys from.
+     * @return a string containing the search time in milliseconds.
+     */
+    public String getParallelSearchTime(String path) {
+        String[] keys = UsefulFunctions.createStringArrayFromFile(path);
+        double startTime = System.nanoTime();
+        if (keys != null) {
+            searchAllParallel(keys);
+        }
+        double endTime = System.nanoTime();
+        return Double.toString((endTime - startTime) / 1000000.0).substring(0, 6);
+    }
+
+    //ORDER STATISTICS
+
+    /**
+     * Gets the amount of keys in the tree, without the keys deleted lazily.
+     *
+     * @return the amount of keys.
+     */
+    public int size() {
+        String[] deleted = sortedTombstones();
+        BTreeNode root = getRoot();
+        return root.getSize() - countKeysIn(root, deleted);
+    }
+
+    /**
+     * Counts the keys in the tree which are smaller than given key, by summing
+     * the sizes of the subtrees left of the path to the key. Costs O(t log n),
+     * and in lazy delete mode another O(log n) for every tombstone smaller than the key.
+     *
+     * @param key the key.
+     * @return the amount of smaller keys, which is the index of the key if it is in the tree.
+     */
+    public int rank(String key) {
+        String lowKey = key.toLowerCase();
+        String[] deleted = tombstones == null ? null : tombstones.headSet(lowKey).toArray(new String[0]);
+        BTreeNode root = getRoot();
+        return rank(root, lowKey) - countKeysIn(root, deleted);
     }
 
     /**
-     * Creates and updates the new root to replace the old one with.
+     * Sub method of rank that counts the keys in the subtree of given node,
+     * including the keys deleted lazily, which are smaller than given key.
      *
-     * @param rightChild the right child of the new root.
-     * @return the new updated root.
+     * @param node   the root of the subtree.
+     * @param lowKey the lowercase key.
+     * @return the amount of smaller keys.
      */
-    private BTreeNode createNewRoot(BTreeNode rightChild) {
-        BTreeNode newRoot = new BTreeNode(T_VAR);
-        String key = getRoot().getKey(T_VAR - 1);
-        newRoot.insert(key);
-        newRoot.setChild(0, getRoot());
-        newRoot.setChild(1, rightChild);
-        newRoot.setLeaf(false);
-        return newRoot;
+    private static int rank(BTreeNode node, String lowKey) {
+        int rank = 0;
+        while (true) {
+            int i = node.findExpectedIndexOfKey(lowKey);
+            rank += i;
+            if (node.isLeaf()) {
+                return rank;
+            }
+            for (int j = 0; j < i; j++) {
+                rank += node.getChild(j).getSize();
+            }
+            if (i < node.getN() && node.getKey(i).equals(lowKey)) {
+                return rank + node.getChild(i).getSize();
+            }
+            node = node.getChild(i);
+        }
+    }
+
+    /**
+     * Finds the key in given index in the sorted order of the keys in the tree, skipping
+     * the keys deleted lazily. Costs O(t log n), and in lazy delete mode another O(t log n)
+     * for every tombstone.
+     *
+     * @param index the index of the key, from 0.
+     * @return the key which has index smaller keys.
+     */
+    public String select(int index) {
+        String[] deleted = sortedTombstones();
+        BTreeNode root = getRoot();
+        int size = root.getSize() - countKeysIn(root, deleted);
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Index: " + index + " n: " + size);
+        }
+        //The tombstones are in order, so each one before the key moves it one index further
+        if (deleted != null) {
+            for (String tombstone : deleted) {
+                if (root.search(tombstone, null)) {
+                    if (rank(root, tombstone) > index) {
+                        break;
+                    }
+                    index++;
+                }
+            }
+        }
+        return select(root, index);
+    }
+
+    /**
+     * Sub method of select that finds the key in given index in the subtree of given node,
+     * including the keys deleted lazily.
+     *
+     * @param node  the root of the subtree.
+     * @param index the index of the key, from 0.
+     * @return the key which has index smaller keys.
+     */
+    private static String select(BTreeNode node, int index) {
+        while (!node.isLeaf()) {
+            int i = 0;
+            while (index >= node.getChild(i).getSize()) {
+                index -= node.getChild(i).getSize();
+                if (index == 0) {
+                    return node.getKey(i);
+                }
+                index--;
+                i++;
+            }
+            node = node.getChild(i);
+        }
+        return node.getKey(index);
+    }
+
+    /**
+     * Copies all tombstones in order. Like the scans, the order statistics copy the tombstones
+     * before they take the root, and then count only the ones of keys still in the root's version.
+     *
+     * @return the tombstones, or null if the tree deletes keys right away.
+     */
+    private String[] sortedTombstones() {
+        return tombstones == null ? null : tombstones.toArray(new String[0]);
+    }
+
+    /**
+     * Counts which of given keys are in the version of the tree with given root.
+     *
+     * @param root the root of the version.
+     * @param keys the lowercase keys, or null.
+     * @return the amount of the keys in the version.
+     */
+    private static int countKeysIn(BTreeNode root, String[] keys) {
+        int count = 0;
+        if (keys != null) {
+            for (String key : keys) {
+                if (root.search(key, null)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    //SCANS
+
+    /**
+     * Iterates in order over all keys between from and to, both included.
+     * The iterator descends once and then walks the nodes in order, holding only
+     * the path from the root to the current node.
+     *
+     * @param from the first key of the range.
+     * @param to   the last key of the range.
+     * @return an iterator over the keys in the range.
+     */
+    public Iterator<String> rangeScan(String from, String to) {
+        String lowFrom = from.toLowerCase();
+        String lowTo = to.toLowerCase();
+        Set<String> deleted = null;
+        if (tombstones != null && lowFrom.compareTo(lowTo) <= 0) {
+            deleted = copyTombstones(tombstones.subSet(lowFrom, true, lowTo, true), null);
+        }
+        return new BTreeIterator(getRoot(), lowFrom, lowTo, null, deleted);
+    }
+
+    /**
+     * Iterates in order over all keys starting with given prefix.
+     *
+     * @param prefix the prefix of the keys.
+     * @return an iterator over the keys with the prefix.
+     */
+    public Iterator<String> prefixScan(String prefix) {
+        String lowPrefix = prefix.toLowerCase();
+        Set<String> deleted = null;
+        if (tombstones != null) {
+            deleted = copyTombstones(tombstones.tailSet(lowPrefix, true), lowPrefix);
+        }
+        return new BTreeIterator(getRoot(), lowPrefix, null, lowPrefix, deleted);
+    }
+
+    /**
+     * Gets all keys of the tree in order, without the keys deleted lazily. Unlike compact,
+     * this doesn't change the tree, and in copy-on-write mode it may run while keys are written.
+     *
+     * @return the sorted keys.
+     */
+    public String[] getSortedKeys() {
+        ArrayList<String> keys = new ArrayList<>();
+        prefixScan("").forEachRemaining(keys::add);
+        return keys.toArray(new String[0]);
+    }
+
+    /**
+     * Copies the tombstones in a scan's range for the scan. A scan checks the tombstones long after
+     * it took the root, when a compaction may have already removed tombstones of keys still in the
+     * scan's version, so it checks a copy taken before the root. Only the tombstones in the range
+     * are visited, since the set is sorted.
+     *
+     * @param range  the tombstones from the start of the range, in order.
+     * @param prefix the prefix of the keys in the range, which ends at the first key without it, or null.
+     * @return a copy of the tombstones in the range, or null if there are none.
+     */
+    private static Set<String> copyTombstones(NavigableSet<String> range, String prefix) {
+        Set<String> copy = null;
+        for (String key : range) {
+            if (prefix != null && !key.startsWith(prefix)) {
+                break;
+            }
+            if (copy == null) {
+                copy = new HashSet<>();
+            }
+            copy.add(key);
+        }
+        return copy;
+    }
+
+    //MAP
+
+    /**
+     * Sets the value of given key, inserting the key if it is not in the tree.
+     * The values are kept in the nodes next to their keys, without any object per entry.
+     *
+     * @param key   the key.
+     * @param value the new value of the key.
+     * @return the previous value of the key, or null if it had none.
+     */
+    public Object put(String key, Object value) {
+        String lowKey = key.toLowerCase();
+        synchronized (writeLock) {
+            boolean revived = tombstones != null && tombstones.contains(lowKey);
+            beginWrite();
+            Object previous = null;
+            if (super.getRoot().searchWritable(lowKey, writeCursor)) {
+                if (!revived) {
+                    previous = writeCursor.getValue();
+                }
+                writeCursor.getNode().setValue(writeCursor.getIndex(), value);
+                writeCursor.reset();
+            }
+            else {
+                insertEntry(lowKey, value);
+            }
+            endWrite();
+            if (revived) {
+                //Only after the new value is published, so readers never see the deleted key's value
+                removeTombstone(lowKey);
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Gets the value of given key.
+     *
+     * @param key the key.
+     * @return the key's value, or null if the key is not in the tree or has no value.
+     */
+    public Object get(String key) {
+        String lowKey = key.toLowerCase();
+        if (isTombstone(lowKey)) {
+            return null;
+        }
+        return getRoot().findValue(lowKey);
+    }
+
+    /**
+     * Deletes given key from the tree and returns it's value.
+     *
+     * @param key the key to delete.
+     * @return the key's value, or null if the key is not in the tree or has no value.
+     */
+    public Object remove(String key) {
+        synchronized (writeLock) {
+            if (!contains(key)) {
+                return null;
+            }
+            Object value = get(key);
+            delete(key);
+            return value;
+        }
     }
 
     /**
@@ -104,6 +688,111 @@ public class BTree {
         }
     }
 
+    /**
+     * Replaces the tree with one built bottom-up from all keys in txt file in given path.
+     *
+     * @param path       the path from which to read the keys.
+     * @param fillFactor the part of each node's 2t-1 key slots to fill, between 0 and 1.
+     */
+    public void createFullTreeBulk(String path, double fillFactor) {
+        String[] keys = UsefulFunctions.createStringArrayFromFile(path);
+        if (keys != null) {
+            bulkLoad(keys, fillFactor);
+        }
+    }
+
+    //BULK LOAD
+
+    /**
+     * Replaces the tree with one built bottom-up from given keys, in one pass per level.
+     * The keys are sorted first if they aren't sorted already. Each level is cut into
+     * nodes filled according to the fill factor, and the key between every two
+     * consecutive nodes is moved up to become a key of the level above them.
+     *
+     * @param keys       the keys to load.
+     * @param fillFactor the part of each node's 2t-1 key slots to fill, between 0 and 1.
+     * @throws NullPointerException     if given keys array is null.
+     * @throws IllegalArgumentException if the fill factor is not in (0, 1].
+     */
+    public void bulkLoad(String[] keys, double fillFactor) {
+        if (keys == null) {
+            throw new NullPointerException("Argument is null");
+        }
+        if (fillFactor <= 0 || fillFactor > 1) {
+            throw new IllegalArgumentException("Fill factor: " + fillFactor);
+        }
+        String[] levelKeys = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            levelKeys[i] = keys[i].toLowerCase();
+        }
+        if (!isSorted(levelKeys)) {
+            Arrays.sort(levelKeys);
+        }
+        int t = getT();
+        int fill = (int) Math.round(fillFactor * (2 * t - 1));
+        fill = Math.max(t - 1, Math.min(2 * t - 1, fill));
+
+        BTreeNode[] levelChildren = null;
+        while (true) {
+            int nodesAmount = nodesInLevel(levelKeys.length, fill);
+            BTreeNode[] nodes = new BTreeNode[nodesAmount];
+            String[] separators = new String[nodesAmount - 1];
+            int keysInNodes = levelKeys.length - separators.length;
+            int keyIndex = 0;
+            int childIndex = 0;
+            for (int i = 0; i < nodesAmount; i++) {
+                int count = keysInNodes / nodesAmount + (i < keysInNodes % nodesAmount ? 1 : 0);
+                nodes[i] = new BTreeNode(t);
+                nodes[i].fill(levelKeys, keyIndex, count, levelChildren, childIndex);
+                keyIndex += count;
+                childIndex += count + 1;
+                if (i < separators.length) {
+                    separators[i] = levelKeys[keyIndex];
+                    keyIndex++;
+                }
+            }
+            if (nodesAmount == 1) {
+                setRoot(nodes[0]);
+                return;
+            }
+            levelKeys = separators;
+            levelChildren = nodes;
+        }
+    }
+
+    /**
+     * Calculates how many nodes a level with given amount of keys is cut into.
+     * Every node but the root must hold between t-1 and 2t-1 keys, and between
+     * every two consecutive nodes one key is moved up to the level above.
+     *
+     * @param keysAmount the amount of keys in the level.
+     * @param fill       the wanted amount of keys in each node.
+     * @return the amount of nodes in the level.
+     */
+    private int nodesInLevel(int keysAmount, int fill) {
+        int slots = keysAmount + 1;
+        int nodes = (slots + fill) / (fill + 1);
+        int t = getT();
+        int minNodes = (slots + 2 * t - 1) / (2 * t);
+        int maxNodes = Math.max(1, slots / t);
+        return Math.max(minNodes, Math.min(maxNodes, nodes));
+    }
+
+    /**
+     * Checks if given array is sorted in ascending order.
+     *
+     * @param keys the array to check.
+     * @return true if the array is sorted, otherwise false.
+     */
+    private static boolean isSorted(String[] keys) {
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i - 1].compareTo(keys[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Runs a search of keys from txt file in given path and gets the time
      * took for the search.
@@ -116,7 +805,7 @@ public class BTree {
         double startTime = System.nanoTime();
         if (keysList != null) {
             for (String key : keysList) {
-                search(key);
+                contains(key);
             }
         }
         double endTime = System.nanoTime();
@@ -143,37 +832,108 @@ public class BTree {
      * @param key the key to delete.
      */
     public void delete(String key) {
-        key = key.toLowerCase();
-        BTreeNode leftChild = root.getChild(0);
-        BTreeNode rightChild = root.getChild(1);
-
-        if (!root.isLeaf() && root.getN() == 1 && leftChild.getN() < T_VAR && rightChild.getN() < T_VAR) {
-            root = mergeSingleKeyRoot();
+        if (tombstones != null) {
+            deleteLazily(key.toLowerCase());
+            return;
         }
-        if (root.keyExist(key)) {
-            if (root.isLeaf()) {
-                root.deleteKey(key);
+        synchronized (writeLock) {
+            beginWrite();
+            writtenKey = key.toLowerCase();
+            if (!delete()) {
+                System.out.println("Key '" + writtenKey + "' is not in the tree.");
             }
-            else {
-                root.handleCase2(key);
+            writtenKey = null;
+            endWrite();
+        }
+    }
+
+    /**
+     * Sub method of delete that marks given lowercase key as a tombstone if it is in the tree,
+     * and starts a background compaction if there are enough tombstones. The key is checked and
+     * marked under the write lock, so no insert or compaction runs between them.
+     *
+     * @param key the key to delete.
+     */
+    private void deleteLazily(String key) {
+        synchronized (writeLock) {
+            if (tombstones.contains(key) || !super.getRoot().search(key, null)) {
+                System.out.println("Key '" + key + "' is not in the tree.");
+                return;
             }
+            tombstones.add(key);
+            tombstonesAmount.incrementAndGet();
         }
-        else {
-            root.handleCase4(key);
+        if (tombstonesAmount.get() >= compactionThreshold && compacting.compareAndSet(false, true)) {
+            Thread compactor = new Thread(() -> {
+                try {
+                    compact();
+                } finally {
+                    compacting.set(false);
+                }
+            }, "BTree compactor");
+            compactor.setDaemon(true);
+            compactor.start();
         }
     }
 
     /**
-     * Merges a root with single key with it's two children.
+     * Removes the keys deleted lazily from the nodes and rebalances them, using deleteAll.
+     * Deletes made during the compaction are left for the next one.
+     */
+    public void compact() {
+        if (tombstones == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            String[] batch = tombstones.toArray(new String[0]);
+            deleteAll(batch);
+            //Only after the new root is published, so readers never miss a tombstone of a key still in their version
+            for (String tombstone : batch) {
+                removeTombstone(tombstone);
+            }
+        }
+    }
+
+    /**
+     * Deletes a batch of keys from the tree. The batch is sorted and deleted in one ordered
+     * traversal, in which nodes may lack keys until the traversal is done with their father.
+     * The tree's shape may differ from the one made by deleting the keys one at a time.
      *
-     * @return the merged node
+     * @param keys the keys to delete.
+     * @return the amount of keys that were in the tree and deleted.
      */
-    private BTreeNode mergeSingleKeyRoot() {
-        BTreeNode root = getRoot();
-        String rootKey = root.getKey(0);
-        BTreeNode leftChild = root.getChild(0);
-        BTreeNode rightChild = root.getChild(1);
-        return root.merge(leftChild, rightChild, rootKey);
+    public int deleteAll(String[] keys) {
+        String[] sortedKeys = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            sortedKeys[i] = keys[i].toLowerCase();
+        }
+        Arrays.sort(sortedKeys);
+        int unique = 0;
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (unique == 0 || !sortedKeys[i].equals(sortedKeys[unique - 1])) {
+                sortedKeys[unique++] = sortedKeys[i];
+            }
+        }
+        boolean[] deleted = new boolean[unique];
+
+        synchronized (writeLock) {
+            beginWrite();
+            BTreeNode root = super.getRoot();
+            root.deleteAll(sortedKeys, 0, unique, deleted, null, 0);
+            while (!root.isLeaf() && root.getN() == 0) {
+                root = root.getChild(0);
+            }
+            replaceRoot(root);
+            endWrite();
+        }
+
+        int count = 0;
+        for (boolean keyDeleted : deleted) {
+            if (keyDeleted) {
+                count++;
+            }
+        }
+        return count;
     }
 
     @Override
@@ -185,6 +945,6 @@ public class BTree {
     }
 
     private boolean isEmpty() {
-        return root.getN() == 0;
+        return getRoot().getN() == 0;
     }
 }
\ No newline at end of file
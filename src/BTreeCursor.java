@@ -0,0 +1,84 @@
+/**
+ * This class implements a reusable position in a BTree: a node and the index
+ * of a key in it's keys array. A search fills a given cursor instead of creating
+ * a new OrderedPair, so repeated lookups don't allocate.
+ */
+public class BTreeCursor {
+    /**
+     * The node the cursor points to.
+     */
+    private BTreeNode node;
+    /**
+     * The index of the key in the node's keys array.
+     */
+    private int index;
+
+    /**
+     * Constructs a cursor that doesn't point to any node.
+     */
+    public BTreeCursor() {
+        reset();
+    }
+
+    public BTreeNode getNode() {
+        return node;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Points the cursor to the key in given index of given node.
+     *
+     * @param node  the node of the key.
+     * @param index the index of the key in the node.
+     */
+    public void set(BTreeNode node, int index) {
+        this.node = node;
+        this.index = index;
+    }
+
+    /**
+     * Clears the cursor so it doesn't point to any node.
+     */
+    public void reset() {
+        node = null;
+        index = -1;
+    }
+
+    /**
+     * Checks if the cursor points to a key.
+     *
+     * @return true if the cursor points to a node, otherwise false.
+     */
+    public boolean isSet() {
+        return node != null;
+    }
+
+    /**
+     * Gets the key the cursor points to.
+     *
+     * @return the key in the cursor's position.
+     */
+    public String getKey() {
+        return node.getKey(index);
+    }
+
+    /**
+     * Gets the value of the key the cursor points to.
+     *
+     * @return the value in the cursor's position, or null if the key has none.
+     */
+    public Object getValue() {
+        return node.getValue(index);
+    }
+
+    @Override
+    public String toString() {
+        if (!isSet()) {
+            return "Empty cursor";
+        }
+        return "Node Subtree: " + node.toString() + "\nIndex: " + index;
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+public class BTreeIterator implements Iterator<String> {
+    /**
+     * The path from the root to the node holding the next key.
+     */
+    private final BTreeNode[] nodes;
+    /**
+     * For every node in the path, the index of the next key to return from it.
+     * In an internal node, this is also the index of the child being walked.
+     */
+    private final int[] indexes;
+    /**
+     * The amount of nodes in the path.
+     */
+    private int depth;
+    /**
+     * The last key to return, or null if the scan is not bounded from above.
+     */
+    private final String to;
+    /**
+     * The prefix every returned key starts with, or null if the scan is not a prefix scan.
+     */
+    private final String prefix;
+    /**
+     * Keys to skip over, or null if no key is skipped.
+     */
+    private final Set<String> tombstones;
+
+    /**
+     * Constructs an iterator that starts from the first key which is not smaller than from,
+     * by descending once from the root.
+     *
+     * @param root   the root of the tree.
+     * @param from   the first key of the scan.
+     * @param to     the last key to return, or null.
+     * @param prefix the prefix the returned keys start with, or null.
+     */
+    public BTreeIterator(BTreeNode root, String from, String to, String prefix) {
+        this(root, from, to, prefix, null);
+    }
+
+    /**
+     * Constructs an iterator that starts from the first key which is not smaller than from,
+     * and skips the keys in given set. The set is checked when the iterator reaches each key.
+     *
+     * @param root       the root of the tree.
+     * @param from       the first key of the scan.
+     * @param to         the last key to return, or null.
+     * @param prefix     the prefix the returned keys start with, or null.
+     * @param tombstones the keys to skip, or null.
+     */
+    public BTreeIterator(BTreeNode root, String from, String to, String prefix, Set<String> tombstones) {
+        int height = 1;
+        for (BTreeNode current = root; !current.isLeaf(); current = current.getChild(0)) {
+            height++;
+        }
+        nodes = new BTreeNode[height];
+        indexes = new int[height];
+        this.to = to;
+        this.prefix = prefix;
+        this.tombstones = tombstones;
+
+        BTreeNode current = root;
+        while (true) {
+            int i = current.findExpectedIndexOfKey(from);
+            push(current, i);
+            if (current.isLeaf()) {
+                break;
+            }
+            current = current.getChild(i);
+        }
+        skipFinishedNodes();
+        skipTombstones();
+    }
+
+    /**
+     * Checks if the iterator has more keys in the range.
+     *
+     * @return true if there is a next key, otherwise false.
+     */
+    @Override
+    public boolean hasNext() {
+        if (depth == 0) {
+            return false;
+        }
+        String key = currentKey();
+        return (to == null || key.compareTo(to) <= 0) && (prefix == null || key.startsWith(prefix));
+    }
+
+    /**
+     * Advances the iterator to the next key while returning the current one.
+     *
+     * @return the current key.
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String next = currentKey();
+        advance();
+        skipTombstones();
+        return next;
+    }
+
+    /**
+     * Moves the path to the key after the current one.
+     */
+    private void advance() {
+        BTreeNode node = nodes[depth - 1];
+        indexes[depth - 1]++;
+        if (!node.isLeaf()) {
+            // The keys after the returned one are in the subtree to it's right.
+            BTreeNode current = node.getChild(indexes[depth - 1]);
+            while (true) {
+                push(current, 0);
+                if (current.isLeaf()) {
+                    break;
+                }
+                current = current.getChild(0);
+            }
+        }
+        skipFinishedNodes();
+    }
+
+    /**
+     * Advances the iterator while the current key is one of the keys to skip.
+     */
+    private void skipTombstones() {
+        if (tombstones != null) {
+            while (hasNext() && tombstones.contains(currentKey())) {
+                advance();
+            }
+        }
+    }
+
+    private String currentKey() {
+        return nodes[depth - 1].getKey(indexes[depth - 1]);
+    }
+
+    private void push(BTreeNode node, int index) {
+        nodes[depth] = node;
+        indexes[depth] = index;
+        depth++;
+    }
+
+    /**
+     * Climbs up the path while the current node has no more keys to return.
+     */
+    private void skipFinishedNodes() {
+        while (depth > 0 && indexes[depth - 1] >= nodes[depth - 1].getN()) {
+            depth--;
+            nodes[depth] = null;
+        }
+    }
+}
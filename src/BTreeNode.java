@@ -1,4 +1,11 @@
-public class BTreeNode {
+import java.util.Arrays;
+
+/**
+ * A node of a BTree. The children and the split, borrow and merge of nodes are the ones of
+ * ArrayBTreeNode; this node keeps the String keys, their values, the size of it's subtree,
+ * and the write operation that owns it in copy-on-write mode.
+ */
+public class BTreeNode extends ArrayBTreeNode<BTreeNode> {
     //FIELDS
     /**
      * The tree's constant.
@@ -9,14 +16,20 @@ public class BTreeNode {
      */
     private final String[] keys;
     /**
-     * Array of pointers to the nodes children
+     * Array of the values of the keys, parallel to the keys array, used when the tree is a map.
+     * Null until a value is put in the node.
      */
-    private final BTreeNode[] children;
+    private Object[] values;
     /**
-     * The number of keys in node.
+     * The number of keys in the node's subtree, used to find keys by their rank.
      */
-    private int n;
-    private boolean isLeaf;
+    private int size;
+    /**
+     * The write operation that created this node, or null. Only a copy-on-write tree sets it:
+     * a node may be changed only by the operation that owns it, and any other node
+     * is copied before being changed.
+     */
+    private final Object owner;
 
     /**
      * creates a new node which is a leaf, and creates the children and keys arrays with the t inserted
@@ -24,28 +37,64 @@ public class BTreeNode {
      * @param t the parameter of the tree
      */
     public BTreeNode(int t) {
+        this(t, null);
+    }
+
+    /**
+     * creates a new leaf node owned by given write operation.
+     *
+     * @param t     the parameter of the tree
+     * @param owner the write operation creating the node, or null.
+     */
+    public BTreeNode(int t, Object owner) {
+        super(t, new BTreeNode[2 * t]);
         this.T_VAR = t;
-        isLeaf = true;
+        this.owner = owner;
         keys = new String[2 * t - 1];
-        children = new BTreeNode[2 * t];
-        n = 0;
     }
 
-    public boolean isLeaf() {
-        return isLeaf;
+    @Override
+    Object getKeyArray() {
+        return keys;
     }
 
-    public void setLeaf(boolean leaf) {
-        isLeaf = leaf;
+    @Override
+    BTreeNode createNode() {
+        return new BTreeNode(T_VAR, owner);
     }
 
-    public int getN() {
-        return n;
+    @Override
+    void appendKey(StringBuilder sb, int i) {
+        sb.append(keys[i]);
     }
 
     // Getters and Setters
-    public void setN(int n) {
-        this.n = n;
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Recalculates the number of keys in the subtree of this node from it's children's sizes.
+     */
+    void recountSize() {
+        int count = getN();
+        if (!isLeaf()) {
+            for (int i = 0; i <= getN(); i++) {
+                count += getChild(i).size;
+            }
+        }
+        size = count;
+    }
+
+    @Override
+    void subtreeChanged() {
+        recountSize();
+    }
+
+    @Override
+    void addToSubtree(int amount) {
+        size += amount;
     }
 
     public String[] getKeys() {
@@ -59,808 +108,581 @@ public class BTreeNode {
      * @return a String with the key.
      */
     public String getKey(int i) {
-        if (i < 0 || i >= n) {
-            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+        if (i < 0 || i >= getN()) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + getN());
         }
         return keys[i];
     }
 
     /**
-     * Sets the key in given index in the keys array to given key.
+     * Gets the value of the key in given index.
      *
-     * @param i   the index to set.
-     * @param str the new key to set the place in the array to to.
+     * @param i the index of the key.
+     * @return the key's value, or null if it has none.
      */
-    private void setKey(int i, String str) {
-        if (i < 0 || i > n) {
-            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+    public Object getValue(int i) {
+        if (i < 0 || i >= getN()) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + getN());
         }
-        keys[i] = str;
+        return values == null ? null : values[i];
     }
 
     /**
-     * outputs the node in a specified index
+     * Sets the value of the key in given index, creating the values array if it is needed.
      *
-     * @param i index in the children array
-     * @return the node located in this index
+     * @param i     the index of the key.
+     * @param value the new value.
      */
-    public BTreeNode getChild(int i) {
-        if (i < 0 || i > n) {
-            throw new IllegalArgumentException("Index: " + i + "," + " n: " + n);
+    void setValue(int i, Object value) {
+        if (values == null) {
+            if (value == null) {
+                return;
+            }
+            values = new Object[keys.length];
         }
-        return children[i];
+        values[i] = value;
     }
 
     /**
-     * Sets the pointer in given index of the children array to given node.
+     * Copies keys and their values from given node to this node. The node may be this node.
      *
-     * @param i    the index of the child to set.
-     * @param node the new node to set the child pointer to.
+     * @param source the node to copy from.
+     * @param from   the index of the first key to copy.
+     * @param to     the index to copy the first key to.
+     * @param count  the amount of keys to copy.
      */
-    public void setChild(int i, BTreeNode node) {
-        if (i < 0 || i > n + 1) {
-            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+    @Override
+    void copyKeys(BTreeNode source, int from, int to, int count) {
+        System.arraycopy(source.keys, from, keys, to, count);
+        if (source.values != null) {
+            if (values == null) {
+                values = new Object[keys.length];
+            }
+            System.arraycopy(source.values, from, values, to, count);
+        }
+        else if (values != null) {
+            Arrays.fill(values, to, to + count, null);
         }
-        children[i] = node;
     }
 
-    //SEARCH
-
     /**
-     * Searches for a given key in the tree.
+     * Clears the keys and values in a range of indexes, so they can be garbage collected.
      *
-     * @param key the key to search for.
-     * @return an ordered pair of a pointer to this node
-     * and the index of the key in it's keys array.
+     * @param from the first index to clear.
+     * @param to   the index after the last one to clear.
      */
-    public OrderedPair search(String key) {
-        int i = findExpectedIndexOfKey(key);
-        if (i < getN() && getKey(i).equals(key)) {
-            return new OrderedPair(this, i);
-        }
-        else if (isLeaf()) {
-            return null;
-        }
-        else {
-            return getChild(i).search(key);
+    @Override
+    void clearKeys(int from, int to) {
+        Arrays.fill(keys, from, to, null);
+        if (values != null) {
+            Arrays.fill(values, from, to, null);
         }
     }
 
-    // INSERT METHODS
+    //COPY ON WRITE
 
     /**
-     * Inserts given key to it's place in the subtree of this node.
+     * Creates a copy of this node owned by given write operation.
+     * The copy shares the children of this node.
      *
-     * @param key the key to insert.
+     * @param owner the write operation that will change the copy.
+     * @return the copy.
      */
-    public void insert(String key) {
-        // If this node is a leaf then the key is inserted in the right place
-        // in the keys array.
-        if (isLeaf()) {
-            insertToKeysArray(key);
-            return;
-        }
-        int i = findExpectedIndexOfKey(key);
-        // If the node is full we split it.
-        if (getChild(i).getN() == 2 * T_VAR - 1) {
-            splitChild(i);
+    public BTreeNode copy(Object owner) {
+        BTreeNode copy = new BTreeNode(T_VAR, owner);
+        System.arraycopy(keys, 0, copy.keys, 0, keys.length);
+        if (values != null) {
+            copy.values = values.clone();
         }
-        insertToCorrectChild(key, i);
+        copy.copyChildren(this, 0, 0, 2 * T_VAR);
+        copy.setN(getN());
+        copy.size = size;
+        copy.setLeaf(isLeaf());
+        return copy;
     }
 
     /**
-     * Finds the expected index of the keys if it was in the current node's keys array.
-     * This helps to find the index of the child in which the key should be.
+     * Gets the child in given index so that it can be changed. If the child is not owned
+     * by the write operation that owns this node, it is replaced with a copy that is,
+     * so older versions of the tree that share the child are never changed.
+     * Without copy-on-write all owners are null and this is the same as getChild.
      *
-     * @param key the key this searches for.
-     * @return the index of key, or the one it would have if it was in the keys array.
+     * @param i index in the children array
+     * @return the node located in this index, owned by this node's owner.
      */
-    private int findExpectedIndexOfKey(String key) {
-        int i = 0;
-        while (i < getN() && getKey(i).compareTo(key) < 0) {
-            i++;
+    @Override
+    BTreeNode getWritableChild(int i) {
+        BTreeNode child = getChild(i);
+        if (child.owner != owner) {
+            child = child.copy(owner);
+            setChild(i, child);
         }
-        return i;
+        return child;
     }
 
-    /**
-     * Splits the child in given index to 2 children, and puts the middle key
-     * of the child between the 2 pointers to the new children.
-     *
-     * @param index the index of the child to split.
-     */
-    private void splitChild(int index) {
-        BTreeNode splitChild = getChild(index);
-        BTreeNode newChild = createNodeForSplit(splitChild);
-
-        if (!splitChild.isLeaf()) {
-            transferChildren(splitChild, newChild);
-        }
-        insertMedianKey(index, this, splitChild);
-        insertNewChild(index, this, newChild);
-        splitChild.setN(T_VAR - 1);
-    }
+    //SEARCH
 
     /**
-     * Sub method of insert that inserts the median key of the split child
-     * to it's right place in the father node
+     * Searches for a given key in the tree.
      *
-     * @param index      the index to insert the key to
-     * @param father     the father node of the split child
-     * @param splitChild the split child.
+     * @param key the key to search for.
+     * @return an ordered pair of a pointer to this node
+     * and the index of the key in it's keys array.
      */
-    private void insertMedianKey(int index, BTreeNode father, BTreeNode splitChild) {
-        for (int i = father.getN(); i > index; i--) {
-            father.setKey(i, this.getKey(i - 1));
+    public OrderedPair search(String key) {
+        int i = findExpectedIndexOfKey(key);
+        if (i < getN() && keys[i].equals(key)) {
+            return new OrderedPair(this, i);
         }
-        setKey(index, splitChild.getKey(T_VAR - 1));
-        setN(getN() + 1);
-    }
-
-    /**
-     * Creates the new right node made from splitting the child, and then copies all
-     * keys that come after the median from the split node to the new one.
-     *
-     * @param splitChild the child node to create the new node from.
-     * @return the new right node.
-     */
-    public BTreeNode createNodeForSplit(BTreeNode splitChild) {
-        BTreeNode newChild = new BTreeNode(T_VAR);
-        newChild.setLeaf(splitChild.isLeaf());
-        newChild.setN(T_VAR - 1);
-        int index2 = 0; //the index of the keys array of the new node
-        for (int i = T_VAR; i < splitChild.getN(); i++) {
-            newChild.setKey(index2, splitChild.getKey(i));
-            splitChild.setKey(i, null);
-            index2++;
+        else if (isLeaf()) {
+            return null;
         }
-        return newChild;
-    }
-
-    /**
-     * Copies the children's list of the split child from it's median,
-     * to the new child's empty children's list.
-     *
-     * @param splitChild the child being split.
-     * @param newChild   the new child created from the split.
-     */
-    void transferChildren(BTreeNode splitChild, BTreeNode newChild) {
-        int indexOther = 0;
-        for (int i = T_VAR; i <= 2 * T_VAR - 1; i++) {
-            newChild.setChild(indexOther, splitChild.getChild(i));
-            splitChild.setChild(i, null);
-            indexOther++;
+        else {
+            return getChild(i).search(key);
         }
     }
 
     /**
-     * Sub method of insert that clears a place for the new child in the father
-     * node's children array, right after the split child.
+     * Searches for a given key in the subtree of this node without recursion,
+     * and points given cursor to it if it was found.
      *
-     * @param index    the index of the split child.
-     * @param father   the father node of the new child and the split child.
-     * @param newChild the new child to insert.
+     * @param key    the key to search for.
+     * @param cursor the cursor to fill with the key's node and index, may be null.
+     * @return true if the key is in the subtree, otherwise false.
      */
-    private void insertNewChild(int index, BTreeNode father, BTreeNode newChild) {
-        for (int i = father.getN(); i > index; i--) {
-            father.setChild(i, father.getChild(i - 1));
+    public boolean search(String key, BTreeCursor cursor) {
+        BTreeNode current = this;
+        while (true) {
+            int i = current.findExpectedIndexOfKey(key);
+            if (i < current.getN() && current.keys[i].equals(key)) {
+                if (cursor != null) {
+                    cursor.set(current, i);
+                }
+                return true;
+            }
+            if (current.isLeaf()) {
+                if (cursor != null) {
+                    cursor.reset();
+                }
+                return false;
+            }
+            current = current.getChild(i);
         }
-        father.setChild(index + 1, newChild);
     }
 
     /**
-     * Sub method of insert that inserts a key to this nodes keys array.
+     * Searches for a given key in the subtree of this node, and points given cursor to it if it was found.
+     * The nodes on the path are copied first if this node's write operation doesn't own them,
+     * so the key's value can be changed through the cursor.
      *
-     * @param key the key to insert.
+     * @param key    the key to search for.
+     * @param cursor the cursor to fill with the key's node and index.
+     * @return true if the key is in the subtree, otherwise false.
      */
-    private void insertToKeysArray(String key) {
-        if (key == null) {
-            throw new NullPointerException();
-        }
-        int i = getN() - 1;
-        while (i >= 0 && getKey(i).compareTo(key) > 0) {
-            setKey(i + 1, getKey(i));
-            i--;
+    boolean searchWritable(String key, BTreeCursor cursor) {
+        BTreeNode current = this;
+        while (true) {
+            int i = current.findExpectedIndexOfKey(key);
+            if (i < current.getN() && current.keys[i].equals(key)) {
+                cursor.set(current, i);
+                return true;
+            }
+            if (current.isLeaf()) {
+                cursor.reset();
+                return false;
+            }
+            current = current.getWritableChild(i);
         }
-        setKey(i + 1, key);
-        setN(getN() + 1);
     }
 
     /**
-     * Sub method of insert used to decide on which of the 2 new children
-     * to call the recursive insertion on.
+     * Searches for a given key in the subtree of this node and gets it's value.
      *
-     * @param key the key to insert.
-     * @param i   the index of the key between the 2 new children.
-     */
-    private void insertToCorrectChild(String key, int i) {
-        if (i == getN() || key.compareTo(getKey(i)) < 0) {
-            getChild(i).insert(key);
-        }
-        else {
-            getChild(i + 1).insert(key);
+     * @param key the key to search for.
+     * @return the key's value, or null if the key is not in the subtree or has no value.
+     */
+    public Object findValue(String key) {
+        BTreeNode current = this;
+        while (true) {
+            int i = current.findExpectedIndexOfKey(key);
+            if (i < current.getN() && current.keys[i].equals(key)) {
+                return current.values == null ? null : current.values[i];
+            }
+            if (current.isLeaf()) {
+                return null;
+            }
+            current = current.getChild(i);
         }
     }
 
-    //DELETE
-
     /**
-     * Deletes given key from the sub tree of this node, and while climbing down the tree
-     * makes sure that the deletion would be possible by manipulating the tree's nodes.
+     * Searches a sorted range of keys in the subtree of this node at once. Every node in the
+     * subtree is visited at most once: the keys are divided between the children in a single
+     * pass over this node's keys, and each child is searched with it's part of the range.
      *
-     * @param key        to remove.
-     * @param childIndex the index of the current node in the father's children array.
-     * @param father     the father of the current node.
+     * @param sortedKeys the keys to search, sorted in ascending order.
+     * @param from       the index of the first key of the range.
+     * @param to         the index after the last key of the range.
+     * @param found      the array in which to mark the indexes of the keys that were found.
      */
-    public void delete(String key, int childIndex, BTreeNode father) {
-        if (getN() < T_VAR) {
-            handleCase1(childIndex, father);
-
-            //Sends delete back to the father to find the new child
-            father.handleCase4(key);
-        }
-        else {
-            boolean keyExist = keyExist(key);
-            if (keyExist) {
-                if (!isLeaf()) {
-                    handleCase2(key);
-                }
-
-                else {
-                    deleteKey(key); //CASE 3
-                }
+    public void searchAll(String[] sortedKeys, int from, int to, boolean[] found) {
+        int i = 0;
+        int runStart = from;
+        for (int k = from; k < to; k++) {
+            String key = sortedKeys[k];
+            int next = i;
+            while (next < getN() && keys[next].compareTo(key) < 0) {
+                next++;
             }
-            else if (isLeaf()) {
-                System.out.println("Key '" + key + "' is not in the tree.");
+            if (next != i) {
+                // The keys of the run belong to the child before the skipped keys.
+                searchChild(i, sortedKeys, runStart, k, found);
+                runStart = k;
+                i = next;
             }
-
-            else { //Key not in the node
-                handleCase4(key);
+            if (i < getN() && keys[i].equals(key)) {
+                found[k] = true;
+                searchChild(i, sortedKeys, runStart, k, found);
+                runStart = k + 1;
             }
         }
-
+        searchChild(i, sortedKeys, runStart, to, found);
     }
 
     /**
-     * Checks if a key is in the node
-     *
-     * @param key to check if the key exists in the node
-     * @return true - if it exists in the node and false otherwise.
-     */
-    public boolean keyExist(String key) {
-        int index = -1;
-        for (int i = 0; i < getN() && getKey(i).compareTo(key) <= 0; i++) {
-            if (getKey(i).equals(key)) {
-                index = i;
-            }
+     * Sub method of searchAll that searches a range of keys in the child in given index.
+     */
+    private void searchChild(int i, String[] sortedKeys, int from, int to, boolean[] found) {
+        if (from < to && !isLeaf()) {
+            getChild(i).searchAll(sortedKeys, from, to, found);
         }
-        return index != -1;
     }
 
-    //CASE 1
+    // INSERT METHODS
 
     /**
-     * Handles case 1 of the algorithm: if a node has less than t-1 keys.
-     * Checks if the child in childIndex have a sibling with more than t-1 keys and re-arranges the tree.
-     * If both of the child's siblings have t-1 keys, the function merges the child with one of its siblings.
+     * Finds the expected index of the keys if it was in the current node's keys array.
+     * This helps to find the index of the child in which the key should be.
+     * Uses a binary search over the keys array, so it costs O(log t) comparisons.
      *
-     * @param childIndex the index of the node in his father's array with less than t-1 keys.
-     * @param father     the father of the node.
+     * @param key the key this searches for.
+     * @return the index of key, or the one it would have if it was in the keys array.
      */
-    public void handleCase1(int childIndex, BTreeNode father) {
-        int siblingIndex = checkSiblings(childIndex, father);
-        if (siblingIndex != -1) {
-            handleCase1a(childIndex, siblingIndex, father);
-        }
-        else { //Its siblings have t-1 keys
-            int siblingToMerge = chooseASibling(father, childIndex);
-            handleCase1b(siblingToMerge, father, childIndex);
+    int findExpectedIndexOfKey(String key) {
+        int low = 0;
+        int high = getN();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
         }
+        return low;
     }
 
-    //CASE 1a
-
     /**
-     * Handles case 1b of the algorithm - merges 2 siblings into one node.
-     * Finds the median key in the father's node and merges the key,the child and the sibling to one node.
+     * Inserts a key with given value in given index, moving the keys after it one place right.
      *
-     * @param siblingToMerge the index of the sibling.
-     * @param father         the father of the child and the sibling.
-     * @param childIndex     the index of the child.
-     */
-    private void handleCase1b(int siblingToMerge, BTreeNode father, int childIndex) {
-        BTreeNode sibling = father.getChild(siblingToMerge);
-        BTreeNode child = father.getChild(childIndex);
-        String key = determineMedianKey(father, siblingToMerge, childIndex);
-        if (siblingToMerge > childIndex) {
-            father.mergeChildrenWithKeyAndPlaceMerged(key, childIndex, child, sibling);
-        }
-        else {
-            father.mergeChildrenWithKeyAndPlaceMerged(key, siblingToMerge, sibling, child);
+     * @param i     the index to insert the key in.
+     * @param key   the key to insert.
+     * @param value the value of the key, or null.
+     */
+    void insertKey(int i, String key, Object value) {
+        if (key == null) {
+            throw new NullPointerException();
         }
+        openKey(i);
+        keys[i] = key;
+        setValue(i, value);
     }
 
-    /**
-     * Determines the index of the median key in the father's node to be merged with the child and a sibling.
-     *
-     * @param father       the father node
-     * @param siblingIndex the index of the sibling in the father's node.
-     * @param childIndex   the index of the child in the father's node.
-     * @return the median key in the correct index.
-     */
-    private String determineMedianKey(BTreeNode father, int siblingIndex, int childIndex) {
-        if (siblingIndex > childIndex) return father.getKey(childIndex);
-        else return father.getKey(siblingIndex);
-    }
+    //BULK LOAD
 
     /**
-     * Handles the case in which at least on of a node's siblings has more than t-1 keys
+     * Fills this empty node with a range of given keys and, if given, the children around them.
      *
-     * @param childIndex   the node of the child who has t-1 keys
-     * @param siblingIndex the index of the sibling with more than t-1 keys
-     * @param father       father of each nodes
+     * @param source         the array to copy the keys from.
+     * @param from           the index of the first key to copy.
+     * @param count          the amount of keys to copy.
+     * @param sourceChildren the array to copy count + 1 children from, or null for a leaf.
+     * @param childFrom      the index of the first child to copy.
      */
-    public void handleCase1a(int childIndex, int siblingIndex, BTreeNode father) {
-        BTreeNode child = father.getChild(childIndex);
-        BTreeNode sibling = father.getChild(siblingIndex);
-        int keyIndexToChange = extractIndex(childIndex, siblingIndex);
-        changeKeysAndChild(keyIndexToChange, father, sibling, child, siblingIndex, childIndex);
-    }
-
-    /**
-     * Makes the various changes to the keys and children to be made in case 1a.
-     * Calculates the location of the median key in the father's keys array and insert it to the child.
-     * Adds a child of the sibling to the child's children array and deletes what we transferred to the father and
-     * the child from the sibling.
-     *
-     * @param keyIndexToChange the index in the father's array keys array.
-     * @param father           the father of the sibling and the child.
-     * @param sibling          the sibling of the child.
-     * @param child            the child to change the keys in.
-     */
-    public void changeKeysAndChild(int keyIndexToChange, BTreeNode father, BTreeNode sibling, BTreeNode child, int siblingIndex, int childIndex) {
-        String median;
-        if (siblingIndex > childIndex) {
-            median = sibling.getKey(0); //min
+    void fill(String[] source, int from, int count, BTreeNode[] sourceChildren, int childFrom) {
+        if (count > 2 * T_VAR - 1) {
+            throw new IllegalArgumentException("Count: " + count + " t: " + T_VAR);
         }
-        else {
-            median = sibling.getKey(sibling.getN() - 1);//max
+        System.arraycopy(source, from, keys, 0, count);
+        setN(count);
+        if (sourceChildren != null) {
+            for (int i = 0; i <= count; i++) {
+                setChild(i, sourceChildren[childFrom + i]);
+            }
+            setLeaf(false);
         }
-
-        String moveToChild = father.getKey(keyIndexToChange);
-        father.setKey(keyIndexToChange, median);
-        addAndDeleteOne(sibling, child, siblingIndex, childIndex, moveToChild);
+        recountSize();
     }
 
-    /**
-     * Adds a key a child of the sibling and deletes a key and the child from the sibling.
-     * Adds one key from the father and insert it to the child, and adds a child if the child or the sibling ar not leafs.
-     * Deletes the key we added to the father node in the sibling's keys array.
-     * Also deletes the child we added to the child's children array.
-     *
-     * @param sibling      the sibling of the child to delete a key and a child from.
-     * @param child        the child to add a key and a child to
-     * @param siblingIndex the index of the sibling
-     * @param childIndex   the index of the child
-     * @param moveToChild  the string to insert into the child.
-     */
-
-    private void addAndDeleteOne(BTreeNode sibling, BTreeNode child, int siblingIndex, int childIndex, String moveToChild) {
-        addOneKey(child, moveToChild, childIndex, siblingIndex);
-        addOneChild(child, sibling, childIndex, siblingIndex);
-        deleteOne(sibling, siblingIndex, childIndex);
-
-    }
+    //BULK DELETE
 
     /**
-     * Adds the median key from the father node to the child's keys array in the correct position (last or first)
+     * Deletes the keys in a range of a sorted array from the sub tree of this node in one ordered
+     * traversal. Nodes may underflow while their sub trees are changed, and each node repairs its
+     * children after it is done with them, so only this node may be left with less than t-1 keys.
+     * If this node is left with no keys and one child, the child may be the same.
+     * <p>
+     * If a target is given, the max key of the sub tree is also removed, and moved with it's value
+     * to the target's index, where it replaces a deleted key.
      *
-     * @param child        the child we'll add the key to
-     * @param toAdd        the median key we will add to the child
-     * @param childIndex   the index of the child
-     * @param siblingIndex the index of the sibling
-     */
-    private void addOneKey(BTreeNode child, String toAdd, int childIndex, int siblingIndex) {
-        if (siblingIndex > childIndex) {
-            child.setKey(child.getN(), toAdd);
+     * @param sortedKeys  the sorted keys to delete, without duplicates.
+     * @param from        the index of the first key to delete.
+     * @param to          the index after the last key to delete.
+     * @param deleted     set to true in the index of every key that was deleted.
+     * @param target      the node to move the max key to, or null.
+     * @param targetIndex the index in the target to move the max key to.
+     * @return true if the max key was moved to the target, false if it was not asked for or the sub tree is empty.
+     */
+    boolean deleteAll(String[] sortedKeys, int from, int to, boolean[] deleted, BTreeNode target, int targetIndex) {
+        if (isLeaf()) {
+            return deleteAllFromLeaf(sortedKeys, from, to, deleted, target, targetIndex);
         }
-        else {
-            for (int i = child.getN(); i >= 1; i--) {
-                child.setKey(i, child.getKey(i - 1));
+        boolean taken = false;
+        int j = from;
+        int i = 0;
+        while (i <= getN()) {
+            int end = i < getN() ? lowerBound(sortedKeys, j, to, getKey(i)) : to;
+            boolean keyDeleted = end < to && i < getN() && sortedKeys[end].equals(getKey(i));
+            boolean take = keyDeleted || (i == getN() && target != null);
+            boolean childTaken = false;
+            if (end > j || take) {
+                //The predecessor replaces a deleted key, and the max of the last child is the max of this node
+                childTaken = getWritableChild(i).deleteAll(sortedKeys, j, end, deleted,
+                        keyDeleted ? this : take ? target : null, keyDeleted ? i : targetIndex);
             }
-            child.setKey(0, toAdd);
-        }
-        child.setN(child.getN() + 1);
-
-    }
+            j = keyDeleted ? end + 1 : end;
 
-    /**
-     * Adds one child to the child's children array in the correct position.
-     * *
-     *
-     * @param child        the child we will transfer the child to.
-     * @param sibling      the sibling of the child we add.
-     * @param childIndex   the index of the child
-     * @param siblingIndex the index of the sibling.
-     */
-    private void addOneChild(BTreeNode child, BTreeNode sibling, int childIndex, int siblingIndex) {
-        if (!sibling.isLeaf()) {
-            if (siblingIndex > childIndex) {
-                child.setChild(child.getN(), sibling.getChild(0));
+            if (keyDeleted) {
+                deleted[end] = true;
+                if (childTaken) {
+                    i++;
+                }
+                else { //The child's sub tree is empty
+                    deleteKeyAndChild(i, i);
+                }
             }
             else {
-                for (int i = child.getN() + 1; i >= 1; i--) {
-                    child.setChild(i, child.getChild(i - 1));
+                if (take) {
+                    if (childTaken) {
+                        taken = true;
+                    }
+                    else if (getN() > 0) { //The last child's sub tree is empty
+                        target.copyKeys(this, getN() - 1, targetIndex, 1);
+                        deleteKeyAndChild(getN() - 1, getN());
+                        taken = true;
+                    }
                 }
-                child.setChild(0, sibling.getChild(sibling.getN()));
+                i++;
             }
         }
-    }
-
-    /**
-     * Determines which key index in the father's array need to be changed.
-     *
-     * @param childIndex   the index of the child.
-     * @param siblingIndex the index of the sibling.
-     * @return the index of the key needed to change.
-     */
-    public int extractIndex(int childIndex, int siblingIndex) {
-        int keyIndexToChange;
-        if (siblingIndex > childIndex) keyIndexToChange = childIndex;
-        else keyIndexToChange = siblingIndex;
-        return keyIndexToChange;
-
-    }
-
-    /**
-     * Deletes one key and child from the sibling, depending on its position.
-     *
-     * @param sibling the sibling to delete the first key and the first child from.
-     */
-    public void deleteOne(BTreeNode sibling, int siblingIndex, int childIndex) {
-        if (siblingIndex > childIndex) {
-            deleteOneCase1(sibling);
-        }
-        else {
-            deleteOneCase2(sibling);
-        }
-        sibling.setN(sibling.getN() - 1);
-    }
-
-    /**
-     * Deletes a key and a child of a sibling if its index is larger than the child.
-     * Moves the keys and children left and deletes the last ones.
-     *
-     * @param node the sibling in Case1a
-     */
-    private void deleteOneCase1(BTreeNode node) {
-        for (int i = 1; i < node.getN(); i++) {
-            node.setKey(i - 1, node.getKey(i));
-        }
-        node.setKey(node.getN() - 1, null);
-        if (!node.isLeaf()) {
-            for (int i = 1; i <= node.getN(); i++) {
-                node.setChild(i - 1, node.getChild(i));
+        repairChildren();
+        recountSize();
+        return taken;
+    }
+
+    /**
+     * Sub method of deleteAll that deletes the keys from this leaf by compacting its keys array.
+     *
+     * @param sortedKeys  the sorted keys to delete.
+     * @param from        the index of the first key to delete.
+     * @param to          the index after the last key to delete.
+     * @param deleted     set to true in the index of every key that was deleted.
+     * @param target      the node to move the max key of the leaf to, or null.
+     * @param targetIndex the index in the target to move the max key to.
+     * @return true if the max key was moved to the target, false if it was not asked for or the leaf is empty.
+     */
+    private boolean deleteAllFromLeaf(String[] sortedKeys, int from, int to, boolean[] deleted,
+                                      BTreeNode target, int targetIndex) {
+        //Keys before read are done with, and the ones kept of them are before write
+        int read = 0;
+        int write = 0;
+        int n = getN();
+        for (int j = from; j < to; j++) {
+            int i = lowerBound(keys, read, n, sortedKeys[j]);
+            if (i < n && keys[i].equals(sortedKeys[j])) {
+                copyKeys(this, read, write, i - read);
+                write += i - read;
+                read = i + 1;
+                deleted[j] = true;
             }
-            node.setChild(node.getN(), null);
         }
-    }
-
-    /**
-     * Deletes a key and a child of a sibling if its index is smaller than the child's.
-     *
-     * @param node the sibling in Case1a.
-     */
-    private void deleteOneCase2(BTreeNode node) {
-        if (!node.isLeaf()) {
-            node.setChild(node.getN(), null);
-
+        copyKeys(this, read, write, n - read);
+        write += n - read;
+        clearKeys(write, n);
+        setN(write);
+        boolean taken = false;
+        if (target != null && write > 0) {
+            target.copyKeys(this, write - 1, targetIndex, 1);
+            removeKey(write - 1);
+            taken = true;
         }
-        node.setKey(node.getN() - 1, null);
+        size = getN();
+        return taken;
     }
 
     /**
-     * Checks if a siblings of a node can lend an element to it.
-     * Checks if the index of the child we check is the first index or last index, and if so we check only one sibling.
-     * if it is in the middle we have to check two of its siblings.
+     * Finds the index of the first key in a range of a sorted array which is not smaller than given key.
      *
-     * @param father the father of the node in index.
-     * @param index  the index of the node in the children array to check its siblings of.
-     * @return the index of a sibling with T_VAR keys at the least or -1.
+     * @param sortedKeys the sorted keys.
+     * @param from       the index of the first key in the range.
+     * @param to         the index after the last key in the range.
+     * @param key        the key to compare with.
+     * @return the index of the first key not smaller than the key, or to if there is none.
      */
-    private int checkSiblings(int index, BTreeNode father) {
-        if (index == 0 && father.getChild(1).getN() > T_VAR - 1) return index + 1;
-
-        if (index == father.getN() && father.getChild(index - 1).getN() > T_VAR - 1) return index - 1;
-
-        return checkSiblingInMiddle(index, father);
-    }
-
-    /**
-     * Checks both siblings of the child at position index in the father's node.
-     *
-     * @param father the father of the node in index.
-     * @param index  of the node in the children array to check its siblings from.
-     * @return the index of a sibling with T_VAR keys at the least or -1.
-     */
-    private int checkSiblingInMiddle(int index, BTreeNode father) {
-        if (index != 0 && index != father.getN()) {
-            int rightChildN = father.getChild(index + 1).getN();
-            if (rightChildN > T_VAR - 1) {
-                return index + 1;
+    private static int lowerBound(String[] sortedKeys, int from, int to, String key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedKeys[mid].compareTo(key) < 0) {
+                low = mid + 1;
             }
-            int leftChildN = father.getChild(index - 1).getN();
-            if (leftChildN > T_VAR - 1) {
-                return index - 1;
+            else {
+                high = mid;
             }
         }
-        return -1;
-    }
-
-    //CASE 1b
-
-    /**
-     * Chooses a sibling if all of the child's siblings have t-1 keys.
-     *
-     * @param father     the father of the child.
-     * @param childIndex the index of the child in the father's children array.
-     * @return an index of some sibling of the child in childIndex.
-     */
-    private int chooseASibling(BTreeNode father, int childIndex) {
-        int siblingIndex;
-        if (childIndex == 0) {
-            siblingIndex = 1;
-        }
-        else if (childIndex == father.getN()) {
-            siblingIndex = childIndex - 1;
-        }
-        else siblingIndex = childIndex + 1;
-        return siblingIndex;
-    }
-
-    //CASE 2
-
-    /**
-     * Handles the delete scenario when the key is in the current node but it is an
-     * internal node.
-     *
-     * @param key the key to delete.
-     */
-    public void handleCase2(String key) {
-        int index = UsefulFunctions.binarySearch(getKeys(), key, getN());
-        BTreeNode leftChild = getChild(index);
-        BTreeNode rightChild = getChild(index + 1);
-
-        if (leftChild.getN() >= T_VAR) {
-            replaceKeyWithMaxKey(index, leftChild);
-        }
-        else if (rightChild.getN() >= T_VAR) {
-            replaceKeyWithMinKey(index, rightChild);
-        }
-        else {
-            mergeChildrenWithKeyAndPlaceMerged(key, index, leftChild, rightChild);
-            getChild(index).delete(key, index, this);
-        }
+        return low;
     }
 
-    //MERGE
-
     /**
-     * Creates a new node and merges the two given sibling children into it,
-     * with the key between them as the median. Then places the new node in
-     * place of the left child merged, and deletes the key from the father.
+     * Deletes the key and the child in given indexes from this node.
      *
-     * @param key        the key to put in the median.
-     * @param index      the index of the key between the children.
-     * @param leftChild  the child left of the key.
-     * @param rightChild the child right of the key.
+     * @param keyIndex   the index of the key.
+     * @param childIndex the index of the child, keyIndex or keyIndex + 1.
      */
-    private void mergeChildrenWithKeyAndPlaceMerged(String key, int index, BTreeNode leftChild, BTreeNode rightChild) {
-        BTreeNode merged = merge(leftChild, rightChild, key);
-        setChild(index, merged);
-        deleteOldChild(index);
-        deleteKey(key);
+    private void deleteKeyAndChild(int keyIndex, int childIndex) {
+        copyChildren(this, childIndex + 1, childIndex, getN() - childIndex);
+        clearChildren(getN(), getN() + 1);
+        removeKey(keyIndex);
     }
 
     /**
-     * Deletes the old child left from the merge.
-     *
-     * @param index the index of the merged child.
+     * Makes every child of this node have at least t-1 keys, by merging each child that has less
+     * with a sibling, or moving keys to it from the sibling if they don't fit in one node.
+     * Does nothing if this node has no keys, since then its child has no sibling.
      */
-    private void deleteOldChild(int index) {
-        for (int i = index + 1; i < getN(); i++) {
-            setChild(i, getChild(i + 1));
-        }
-        setChild(getN(), null);
-    }
-
-    /**
-     * Merges two given nodes with a given key, so that the key would be the median,
-     * the keys and children of the left node would be to the left of the median,
-     * and the keys and children of the right node would be to the right of the median.
-     *
-     * @param leftNode  the node to merge left.
-     * @param rightNode the node to merge right.
-     * @param key       the key to put as median.
-     * @return the merged node.
-     */
-    public BTreeNode merge(BTreeNode leftNode, BTreeNode rightNode, String key) {
-        BTreeNode merged = new BTreeNode(T_VAR);
-        merged.setLeaf(leftNode.isLeaf());
-        // We set the n value of the node to the expected n so that we could add to it keys simultaneously
-        // on different places, and also add the given key as median.
-        merged.setN(rightNode.getN() + leftNode.getN() + 1);
-        merged.setKey(T_VAR - 1, key);
-        copyKeysToMerged(leftNode, rightNode, merged);
-        copyChildrenToMerged(leftNode, rightNode, merged);
-        return merged;
-    }
-
-    /**
-     * Copies the children from the left an right node to the merged.
-     *
-     * @param leftNode  the left node in the merge.
-     * @param rightNode the right node in the merge
-     * @param merged    the new node created in the merge.
-     */
-    private void copyChildrenToMerged(BTreeNode leftNode, BTreeNode rightNode, BTreeNode merged) {
-        for (int i = 0; i < T_VAR; i++) {
-            merged.setChild(i, leftNode.getChild(i));
-            merged.setChild(i + T_VAR, rightNode.getChild(i));
-        }
-    }
-
-    /**
-     * Copies the keys of the left and right nodes in the merge to the merged node.
-     *
-     * @param leftNode  the left node in the merge.
-     * @param rightNode the right key in the merge.
-     * @param merged    the new node created in the merge.
-     */
-    private void copyKeysToMerged(BTreeNode leftNode, BTreeNode rightNode, BTreeNode merged) {
-        for (int i = 0; i < T_VAR - 1; i++) {
-            merged.setKey(i, leftNode.getKey(i));
-            merged.setKey(i + T_VAR, rightNode.getKey(i));
+    void repairChildren() {
+        int i = 0;
+        while (getN() > 0 && i <= getN()) {
+            if (getChild(i).getN() < T_VAR - 1) {
+                repairChild(i);
+                //A repair may leave the left sibling lacking, if the children below it were repaired too
+                i = Math.max(i - 1, 0);
+            }
+            else {
+                i++;
+            }
         }
     }
 
-    // FIND PREDECESSOR AND SUCCESSOR
-
     /**
-     * Searches for the max key in the the child's subtree, replaces the key in the node with it,
-     * then deletes the max key in the subtree of the child.
+     * Repairs the child in given index together with its right sibling, or with its left sibling if it is the last.
+     * A child with no keys still holds the sub tree of its single child, which may be lacking as well,
+     * so the children of the repaired nodes are repaired after it.
      *
-     * @param index the index of the child in the children array.
-     * @param child the child to search the max key in.
+     * @param index the index of the lacking child.
      */
-    private void replaceKeyWithMaxKey(int index, BTreeNode child) {
-        String max = findMaxKeyInChild(child);
-        setKey(index, max);
-        child.delete(max, index, this);
-    }
+    private void repairChild(int index) {
+        int leftIndex = index < getN() ? index : index - 1;
+        BTreeNode leftChild = getWritableChild(leftIndex);
+        BTreeNode rightChild = getWritableChild(leftIndex + 1);
+        boolean hollow = leftChild.isHollow() || rightChild.isHollow();
+        int total = leftChild.getN() + rightChild.getN();
 
-    /**
-     * Finds the max key in give childes sub tree.
-     *
-     * @param child the child to search the max key in.
-     * @return the max key in the subtree.
-     */
-    private String findMaxKeyInChild(BTreeNode child) {
-        BTreeNode current = child;
-        int currentN = current.getN();
-
-        while (!current.isLeaf()) {
-            current = current.getChild(currentN);
-            currentN = current.getN();
+        if (total < 2 * T_VAR - 1) {
+            mergeChildren(leftIndex);
+            if (hollow) {
+                leftChild.repairChildren();
+            }
         }
-        currentN = current.getN();
-        return current.getKey(currentN - 1);
-    }
-
-    /**
-     * Searches for the min key in the the child's subtree, replaces the key in the node with it,
-     * then deletes the min key in the child's subtree.
-     *
-     * @param index the index of the child in the children array.
-     * @param child the child to search the min key in.
-     */
-    private void replaceKeyWithMinKey(int index, BTreeNode child) {
-        String min = findMinKeyInChild(child);
-        setKey(index, min);
-        child.delete(min, index, this);
-    }
-
-    /**
-     * Finds the min key in give childes sub tree.
-     *
-     * @param child the child to search the min key in.
-     * @return the min key in the subtree.
-     */
-    private String findMinKeyInChild(BTreeNode child) {
-        BTreeNode current = child;
-
-        while (!current.isLeaf()) {
-            current = current.getChild(0);
+        else { //Splits the keys evenly between the children
+            int leftN = total / 2;
+            if (leftChild.getN() < leftN) {
+                moveKeysFromRight(leftIndex, leftN - leftChild.getN());
+            }
+            else {
+                moveKeysFromLeft(leftIndex, leftChild.getN() - leftN);
+            }
+            if (hollow) {
+                leftChild.repairChildren();
+                rightChild.repairChildren();
+            }
         }
-        return current.getKey(0);
     }
 
-    //CASE3 & GENERAL USE
-
     /**
-     * Deletes given key form current nodes keys array.
+     * Checks if this is an internal node with no keys, which deleteAll may leave.
      *
-     * @param key the key to delete.
+     * @return true if the node is internal and has no keys, otherwise false.
      */
-    public void deleteKey(String key) {
-        int index = UsefulFunctions.binarySearch(getKeys(), key, getN());
-        for (int i = index; i < getN() - 1; i++) {
-            setKey(i, getKey(i + 1));
-        }
-        setN(getN() - 1);
+    private boolean isHollow() {
+        return !isLeaf() && getN() == 0;
     }
 
-    //CASE 4
-
     /**
-     * This functions handles the case in which the key is not in the current node.
-     * We check where to continue searching for it.
+     * Moves keys from the right child of the key in given index to its left child, through this node.
      *
-     * @param key to check in which child it might be in
+     * @param index the index of the key between the children.
+     * @param count the amount of keys to move.
      */
-    public void handleCase4(String key) {
-
-        for (int i = 0; i < getN(); i++) {
-            String keyCheck = getKey(i);
-            if (keyCheck.compareTo(key) > 0) //keyCheck > key
-            {
-                getChild(i).delete(key, i, this);
-                return;
-            }
-        }
-        getChild(getN()).delete(key, getN(), this);
-    }
-
-    //toString
-    @Override
-    public String toString() {
-        String toString = toString(new StringBuilder(), 0).toString();
-        return toString.substring(0, toString.length() - 1);
-    }
+    private void moveKeysFromRight(int index, int count) {
+        BTreeNode leftChild = getChild(index);
+        BTreeNode rightChild = getChild(index + 1);
+        int leftN = leftChild.getN();
+        int rightN = rightChild.getN();
 
-    /**
-     * Sub method of toString that builds the string representation
-     * of the subtree recursively.
-     *
-     * @param sb    an accumulator that collects the subtree's toStrings
-     * @param depth the depth of the current subtree.
-     * @return a string visually representing the subtree.
-     */
-    private StringBuilder toString(StringBuilder sb, int depth) {
-        if (isLeaf()) {
-            return sb.append(addKeysToString(depth));
-        }
-        //Gets the string representation of the sub tree of this node.
-        for (int i = 0; i <= getN(); i++) {
-            sb = getChild(i).toString(sb, depth + 1);
-            if (i < getN()) {
-                sb.append(getKey(i)).append("_").append(depth).append(",");
-            }
+        leftChild.copyKeys(this, index, leftN, 1);
+        leftChild.copyKeys(rightChild, 0, leftN + 1, count - 1);
+        copyKeys(rightChild, count - 1, index, 1);
+        rightChild.copyKeys(rightChild, count, 0, rightN - count);
+        rightChild.clearKeys(rightN - count, rightN);
+        if (!leftChild.isLeaf()) {
+            leftChild.copyChildren(rightChild, 0, leftN + 1, count);
+            rightChild.copyChildren(rightChild, count, 0, rightN - count + 1);
+            rightChild.clearChildren(rightN - count + 1, rightN + 1);
         }
-        return sb;
+        leftChild.setN(leftN + count);
+        rightChild.setN(rightN - count);
+        leftChild.recountSize();
+        rightChild.recountSize();
     }
 
     /**
-     * Sub method of toString used to addFirst the keys held in the current node.
+     * Moves keys from the left child of the key in given index to its right child, through this node.
      *
-     * @param depth the depth of the current node.
-     * @return a string with the keys and the depth they are from.
+     * @param index the index of the key between the children.
+     * @param count the amount of keys to move.
      */
-    private String addKeysToString(int depth) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < getN(); i++) {
-            sb.append(getKey(i)).append("_").append(depth).append(",");
-        }
-        return sb.toString();
+    private void moveKeysFromLeft(int index, int count) {
+        BTreeNode leftChild = getChild(index);
+        BTreeNode rightChild = getChild(index + 1);
+        int leftN = leftChild.getN();
+        int rightN = rightChild.getN();
+
+        rightChild.copyKeys(rightChild, 0, count, rightN);
+        rightChild.copyKeys(this, index, count - 1, 1);
+        rightChild.copyKeys(leftChild, leftN - count + 1, 0, count - 1);
+        copyKeys(leftChild, leftN - count, index, 1);
+        leftChild.clearKeys(leftN - count, leftN);
+        if (!leftChild.isLeaf()) {
+            rightChild.copyChildren(rightChild, 0, count, rightN + 1);
+            rightChild.copyChildren(leftChild, leftN - count + 1, 0, count);
+            leftChild.clearChildren(leftN - count + 1, leftN + 1);
+        }
+        leftChild.setN(leftN - count);
+        rightChild.setN(rightN + count);
+        leftChild.recountSize();
+        rightChild.recountSize();
     }
 }
@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks the t of a BTree for a workload on the current machine, instead of guessing it.
+ * The tuner samples the keys, and for every candidate t builds a tree of the sample by inserting it
+ * and searches it with probes made of the sample, half of them keys in the tree and half keys that
+ * are not. The recommended t is the one with the least cost per operation, weighting searches and
+ * inserts by their part in the workload. The measurements and the sample's key distribution are
+ * kept in a report, which can be stored next to the configuration that uses the t.
+ * <p>
+ * Run as a program, it tunes for the keys of a txt file and prints the report:
+ * java BTreeTuner path [searchFraction] [sampleSize]
+ */
+public class BTreeTuner {
+    private static final int[] CANDIDATE_TS = {2, 4, 8, 16, 32, 64, 128, 256};
+    private static final int DEFAULT_SAMPLE_SIZE = 100000;
+    private static final double DEFAULT_SEARCH_FRACTION = 0.9;
+    /**
+     * The amount of measurements of every t. The first one warms up the JIT and is dropped,
+     * and the fastest of the others is kept.
+     */
+    private static final int ROUNDS = 4;
+    /**
+     * The fill factor of a tree rebuilt at the recommended t, which leaves room for inserts.
+     */
+    private static final double REBUILD_FILL_FACTOR = 0.75;
+
+    //FIELDS
+
+    /**
+     * The sampled lowercase keys, in random order.
+     */
+    private final String[] sample;
+    /**
+     * The keys searched in the calibration, half of them in the sample.
+     */
+    private final String[] probes;
+    /**
+     * The part of the operations in the workload which are searches, between 0 and 1.
+     */
+    private final double searchFraction;
+    /**
+     * The measured cost of an insert and of a search at every candidate t, in nanoseconds.
+     */
+    private final double[] insertNanos = new double[CANDIDATE_TS.length];
+    private final double[] searchNanos = new double[CANDIDATE_TS.length];
+    /**
+     * The recommended t, or 0 before the calibration.
+     */
+    private int recommendedT;
+
+    /**
+     * Constructs a tuner for a workload on given keys.
+     *
+     * @param keys           the keys of the workload.
+     * @param sampleSize     the most keys to sample from the keys.
+     * @param searchFraction the part of the operations which are searches, between 0 and 1.
+     * @param seed           the seed of the sampling.
+     * @throws NullPointerException     if given keys array is null.
+     * @throws IllegalArgumentException if there are no keys, or the search fraction is not in [0, 1].
+     */
+    public BTreeTuner(String[] keys, int sampleSize, double searchFraction, long seed) {
+        if (keys == null) {
+            throw new NullPointerException("Argument is null");
+        }
+        if (keys.length == 0 || sampleSize < 1) {
+            throw new IllegalArgumentException("Keys: " + keys.length + " sample size: " + sampleSize);
+        }
+        if (searchFraction < 0 || searchFraction > 1) {
+            throw new IllegalArgumentException("Search fraction: " + searchFraction);
+        }
+        this.searchFraction = searchFraction;
+        Random random = new Random(seed);
+        String[] shuffled = keys.clone();
+        int amount = Math.min(sampleSize, keys.length);
+        //A partial shuffle, which samples without replacement
+        for (int i = 0; i < amount; i++) {
+            int j = i + random.nextInt(shuffled.length - i);
+            String key = shuffled[j];
+            shuffled[j] = shuffled[i];
+            shuffled[i] = key.toLowerCase();
+        }
+        sample = Arrays.copyOf(shuffled, amount);
+        probes = new String[amount];
+        for (int i = 0; i < amount; i++) {
+            String key = sample[random.nextInt(amount)];
+            //A key next to a sampled key, which is most likely not in the tree
+            probes[i] = random.nextBoolean() ? key : key + (char) ('a' + random.nextInt(26));
+        }
+    }
+
+    /**
+     * Creates a tuner for a workload on the keys of given tree, sampled by distinct ranks.
+     * The tree is not changed. Keys deleted lazily and not compacted yet are not sampled,
+     * and if there are any, all keys are read in order instead of selecting the sample by rank.
+     *
+     * @param tree           the tree.
+     * @param sampleSize     the most keys to sample from the tree.
+     * @param searchFraction the part of the operations which are searches, between 0 and 1.
+     * @param seed           the seed of the sampling.
+     * @return the tuner.
+     */
+    public static BTreeTuner ofTree(BTree tree, int sampleSize, double searchFraction, long seed) {
+        //The tombstones are checked before the size, since a compaction publishes the root before it removes them
+        boolean hasTombstones = tree.getTombstonesAmount() > 0;
+        int size = tree.size();
+        String[] keys;
+        if (hasTombstones || size <= sampleSize) {
+            keys = tree.getSortedKeys();
+        }
+        else {
+            Random random = new Random(seed);
+            int[] ranks = new int[size];
+            for (int i = 0; i < size; i++) {
+                ranks[i] = i;
+            }
+            keys = new String[sampleSize];
+            //A partial shuffle, which samples without replacement
+            for (int i = 0; i < sampleSize; i++) {
+                int j = i + random.nextInt(size - i);
+                int rank = ranks[j];
+                ranks[j] = ranks[i];
+                keys[i] = tree.select(rank);
+            }
+        }
+        return new BTreeTuner(keys, sampleSize, searchFraction, seed);
+    }
+
+    //CALIBRATION
+
+    /**
+     * Measures the cost of inserts and searches at every candidate t, and recommends the t
+     * with the least cost per operation of the workload.
+     *
+     * @return the recommended t.
+     */
+    public int calibrate() {
+        int best = 0;
+        for (int c = 0; c < CANDIDATE_TS.length; c++) {
+            insertNanos[c] = Double.MAX_VALUE;
+            searchNanos[c] = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                BTree tree = new BTree(Integer.toString(CANDIDATE_TS[c]));
+                double insert = timeInserts(tree);
+                double search = timeSearches(tree);
+                if (round > 0) {
+                    insertNanos[c] = Math.min(insertNanos[c], insert);
+                    searchNanos[c] = Math.min(searchNanos[c], search);
+                }
+            }
+            if (cost(c) < cost(best)) {
+                best = c;
+            }
+        }
+        recommendedT = CANDIDATE_TS[best];
+        return recommendedT;
+    }
+
+    /**
+     * Calculates the cost of an operation of the workload at a candidate t.
+     *
+     * @param c the index of the candidate.
+     * @return the weighted cost in nanoseconds.
+     */
+    private double cost(int c) {
+        return searchFraction * searchNanos[c] + (1 - searchFraction) * insertNanos[c];
+    }
+
+    private double timeInserts(BTree tree) {
+        double startTime = System.nanoTime();
+        for (String key : sample) {
+            tree.insert(key);
+        }
+        return BenchmarkUtils.nanosSince(startTime) / sample.length;
+    }
+
+    private double timeSearches(BTree tree) {
+        int found = 0;
+        double startTime = System.nanoTime();
+        for (String probe : probes) {
+            if (tree.contains(probe)) {
+                found++;
+            }
+        }
+        double time = BenchmarkUtils.nanosSince(startTime);
+        BenchmarkUtils.consume(found);
+        return time / probes.length;
+    }
+
+    /**
+     * Gets the recommended t, calibrating first if the tuner was not calibrated yet.
+     *
+     * @return the recommended t.
+     */
+    public int getRecommendedT() {
+        if (recommendedT == 0) {
+            calibrate();
+        }
+        return recommendedT;
+    }
+
+    /**
+     * Builds a tree holding the keys of given tree at the recommended t, bottom-up by bulkLoad.
+     * The given tree is not changed, and keys it deleted lazily are left out.
+     *
+     * @param tree the tree to rebuild.
+     * @return the rebuilt tree.
+     */
+    public BTree rebuild(BTree tree) {
+        return new BTree(Integer.toString(getRecommendedT()), tree.getSortedKeys(), REBUILD_FILL_FACTOR);
+    }
+
+    //REPORT
+
+    /**
+     * Creates a report of the sample's key distribution, the machine, and the measurements,
+     * calibrating first if the tuner was not calibrated yet.
+     *
+     * @return the report.
+     */
+    public String getReport() {
+        int t = getRecommendedT();
+        String[] sorted = sample.clone();
+        Arrays.sort(sorted);
+        long lengths = 0;
+        long sharedPrefixes = 0;
+        int maxLength = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            lengths += sorted[i].length();
+            maxLength = Math.max(maxLength, sorted[i].length());
+            if (i > 0) {
+                sharedPrefixes += sharedPrefixLength(sorted[i - 1], sorted[i]);
+            }
+        }
+        String lineSeparator = System.lineSeparator();
+        StringBuilder sb = new StringBuilder();
+        sb.append("BTree tuning report").append(lineSeparator);
+        sb.append("java: ").append(System.getProperty("java.version"))
+                .append(", os: ").append(System.getProperty("os.name")).append(' ').append(System.getProperty("os.arch"))
+                .append(", processors: ").append(Runtime.getRuntime().availableProcessors()).append(lineSeparator);
+        sb.append(String.format("sample: %d keys, average length %.2f, max length %d, average prefix shared with the previous key %.2f",
+                sorted.length, (double) lengths / sorted.length, maxLength,
+                sorted.length > 1 ? (double) sharedPrefixes / (sorted.length - 1) : 0.0)).append(lineSeparator);
+        sb.append(String.format("search fraction: %.2f", searchFraction)).append(lineSeparator);
+        sb.append("t\tinsert ns\tsearch ns\tcost ns").append(lineSeparator);
+        for (int c = 0; c < CANDIDATE_TS.length; c++) {
+            sb.append(String.format("%d\t%.1f\t%.1f\t%.1f", CANDIDATE_TS[c], insertNanos[c], searchNanos[c], cost(c)))
+                    .append(lineSeparator);
+        }
+        sb.append("recommended t: ").append(t).append(lineSeparator);
+        return sb.toString();
+    }
+
+    /**
+     * Writes the report to given path.
+     *
+     * @param path the path of the report.
+     * @throws UncheckedIOException if the report can't be written.
+     */
+    public void writeReport(String path) {
+        try {
+            Files.write(Paths.get(path), getReport().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int sharedPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        int i = 0;
+        while (i < length && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    public static void main(String[] args) {
+        String[] keys = UsefulFunctions.createStringArrayFromFile(args[0]);
+        if (keys == null) {
+            return;
+        }
+        double searchFraction = args.length > 1 ? Double.parseDouble(args[1]) : DEFAULT_SEARCH_FRACTION;
+        int sampleSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SAMPLE_SIZE;
+        System.out.print(new BTreeTuner(keys, sampleSize, searchFraction, 1).getReport());
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * The timing and the result sink shared by the benchmarks and BTreeTuner.
+ */
+public class BenchmarkUtils {
+    /**
+     * Where the results of measured loops are sunk. The JIT can't prove a static field is never read,
+     * so a loop whose result is sunk here is not dropped.
+     */
+    private static int blackhole;
+
+    /**
+     * Sinks the result of a measured loop, so the JIT doesn't drop the loop.
+     *
+     * @param result the result of the loop.
+     */
+    public static void consume(int result) {
+        blackhole ^= result;
+    }
+
+    /**
+     * Gets the time since given start time.
+     *
+     * @param startTime a start time from System.nanoTime.
+     * @return the time since the start time in nanoseconds.
+     */
+    public static double nanosSince(double startTime) {
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Gets the time since given start time.
+     *
+     * @param startTime a start time from System.nanoTime.
+     * @return the time since the start time in milliseconds.
+     */
+    public static double millisSince(double startTime) {
+        return nanosSince(startTime) / 1000000.0;
+    }
+}
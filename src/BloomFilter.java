@@ -29,6 +29,21 @@ public class BloomFilter {
         bloomFilter = new boolean[this.m1];
     }
 
+    /**
+     * Constructs a bloom filter with given table and hash functions, such as ones restored from a snapshot.
+     * @param bloomFilter the table of the filter, which the filter keeps.
+     * @param hashFunctionsList the hash functions of the filter.
+     * @throws NullPointerException if a given parameter is null.
+     */
+    BloomFilter(boolean[] bloomFilter, HashFunctionsList hashFunctionsList){
+        if(bloomFilter == null || hashFunctionsList == null){
+            throw new NullPointerException("An argument is null");
+        }
+        this.hashFunctionsList = hashFunctionsList;
+        this.m1 = bloomFilter.length;
+        this.bloomFilter = bloomFilter;
+    }
+
     /**
      * Updates the bloom filter with given passwords.
      * @param path the path from which to read the functions.
@@ -45,13 +60,20 @@ public class BloomFilter {
      */
     private void updateFilter(LinkedList<Integer> badPassKeysList)
     {
-        for(int i = 0; i< badPassKeysList.getSize(); i++)
+        for(Integer k : badPassKeysList)
         {
-            Integer k = badPassKeysList.get(i);
-            for(HashFunction func: getHashFunctionsList()) {
-                int index = func.runFunction(k,getM1());
-                setFilterPosition(index,true);
-            }
+            addKey(k);
+        }
+    }
+
+    /**
+     * Updates the bloom filter with a single key.
+     * @param key the key of a password, as converted by UsefulFunctions.convertToKey.
+     */
+    public void addKey(int key) {
+        for(HashFunction func: getHashFunctionsList()) {
+            int index = func.runFunction(key,getM1());
+            setFilterPosition(index,true);
         }
     }
 
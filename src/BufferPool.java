@@ -0,0 +1,150 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A fixed amount of page frames caching the pages of a file.
+ * Frames are evicted in least recently used order, skipping pinned frames,
+ * and dirty pages are written back to the file when they are evicted or flushed.
+ */
+public class BufferPool {
+    /**
+     * The file the pages are read from and written to.
+     */
+    private final FileChannel channel;
+    /**
+     * The size of a page in bytes.
+     */
+    private final int pageSize;
+    /**
+     * The maximal amount of frames held in memory.
+     */
+    private final int capacity;
+    /**
+     * The frames held in memory by their page id, in least recently used order.
+     */
+    private final LinkedHashMap<Integer, PageFrame> frames;
+
+    /**
+     * Constructs an empty buffer pool over given file.
+     *
+     * @param channel  the file of the pages.
+     * @param pageSize the size of a page in bytes.
+     * @param capacity the maximal amount of frames held in memory.
+     */
+    public BufferPool(FileChannel channel, int pageSize, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity: " + capacity);
+        }
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.capacity = capacity;
+        this.frames = new LinkedHashMap<>(capacity * 2, 0.75f, true);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the frame of given page and pins it, reading the page from the file if it is not
+     * in memory. A page past the end of the file is read as zeros.
+     *
+     * @param pageId the id of the page.
+     * @return the pinned frame of the page.
+     * @throws IllegalStateException if all frames are pinned.
+     */
+    public PageFrame pin(int pageId) {
+        PageFrame frame = frames.get(pageId);
+        if (frame == null) {
+            if (frames.size() == capacity) {
+                evict();
+            }
+            frame = new PageFrame(pageId, pageSize);
+            read(frame);
+            frames.put(pageId, frame);
+        }
+        frame.setPinCount(frame.getPinCount() + 1);
+        return frame;
+    }
+
+    /**
+     * Releases a frame pinned by pin.
+     *
+     * @param frame the frame to release.
+     * @param dirty whether the page was changed while it was pinned.
+     */
+    public void unpin(PageFrame frame, boolean dirty) {
+        if (frame.getPinCount() == 0) {
+            throw new IllegalStateException("Page " + frame.getPageId() + " is not pinned");
+        }
+        frame.setPinCount(frame.getPinCount() - 1);
+        if (dirty) {
+            frame.setDirty(true);
+        }
+    }
+
+    /**
+     * Writes all dirty pages to the file and forces the file to the disk.
+     */
+    public void flush() {
+        for (PageFrame frame : frames.values()) {
+            if (frame.isDirty()) {
+                write(frame);
+            }
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes the least recently used frame that is not pinned, writing it back if it is dirty.
+     */
+    private void evict() {
+        Iterator<PageFrame> iterator = frames.values().iterator();
+        while (iterator.hasNext()) {
+            PageFrame frame = iterator.next();
+            if (frame.getPinCount() == 0) {
+                if (frame.isDirty()) {
+                    write(frame);
+                }
+                iterator.remove();
+                return;
+            }
+        }
+        throw new IllegalStateException("All " + capacity + " frames are pinned");
+    }
+
+    private void read(PageFrame frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame.getData());
+        long position = (long) frame.getPageId() * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(PageFrame frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame.getData());
+        long position = (long) frame.getPageId() * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        frame.setDirty(false);
+    }
+}
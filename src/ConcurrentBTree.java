@@ -0,0 +1,411 @@
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A thread safe BTree of lowercase passwords, synchronized by latch crabbing: every node has a latch,
+ * and an operation latches a child before it releases the child's father, so it never sees a node
+ * in the middle of a change, and a writer holds only the latches of the nodes it may still change.
+ * <p>
+ * A search holds at most two read latches, of a node and of it's child. A writer first descends
+ * the same way and latches only the leaf in write mode, and changes it if the leaf stays
+ * a valid node: an insert into a leaf that is not full, or a delete from a leaf with at least t keys.
+ * Otherwise it starts over pessimistically, latching the nodes on it's path in write mode, and splitting
+ * full children on the way down of an insert and filling children with t-1 keys on the way down
+ * of a delete, like ArrayBTree. A child made this way can't change it's father anymore, so the writer
+ * releases the father as soon as it latched the child. The latches of the siblings a child borrows
+ * from or is merged with are taken while the father is latched, and every operation latches from
+ * the root down, so the latches never deadlock.
+ * <p>
+ * The root is guarded by a latch of it's own, which a writer that may replace the root
+ * holds until the root is safe.
+ */
+public class ConcurrentBTree {
+
+    //FIELDS
+
+    /**
+     * The t constant of the tree.
+     */
+    private final int T_VAR;
+    /**
+     * Guards the reference to the root: it is read in read mode, and replaced in write mode.
+     */
+    private final ReentrantReadWriteLock rootLatch = new ReentrantReadWriteLock();
+    /**
+     * The root of the tree.
+     */
+    private ConcurrentBTreeNode root;
+
+    /**
+     * Constructs an empty ConcurrentBTree.
+     *
+     * @param tVal the value of the tree's constant.
+     */
+    public ConcurrentBTree(String tVal) {
+        T_VAR = Integer.parseInt(tVal);
+        root = new ConcurrentBTreeNode(T_VAR);
+    }
+
+    public int getT() {
+        return T_VAR;
+    }
+
+    /**
+     * Gets the root of the tree, to inspect it while no thread changes the tree.
+     *
+     * @return the root.
+     */
+    public ConcurrentBTreeNode getRoot() {
+        rootLatch.readLock().lock();
+        try {
+            return root;
+        } finally {
+            rootLatch.readLock().unlock();
+        }
+    }
+
+    /**
+     * Latches the root in read mode, after a search or a writer's first descent
+     * decided the root is not a leaf.
+     *
+     * @return the latched root, or null if the root is a leaf.
+     */
+    private ConcurrentBTreeNode readLatchInnerRoot() {
+        rootLatch.readLock().lock();
+        try {
+            if (root.isLeaf()) {
+                return null;
+            }
+            root.lockRead();
+            return root;
+        } finally {
+            rootLatch.readLock().unlock();
+        }
+    }
+
+    //SEARCH
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        String lowKey = key.toLowerCase();
+        rootLatch.readLock().lock();
+        ConcurrentBTreeNode node = root;
+        node.lockRead();
+        rootLatch.readLock().unlock();
+        while (true) {
+            int i = node.findExpectedIndexOfKey(lowKey);
+            if (node.keyEquals(i, lowKey)) {
+                node.unlockRead();
+                return true;
+            }
+            if (node.isLeaf()) {
+                node.unlockRead();
+                return false;
+            }
+            ConcurrentBTreeNode child = node.getChild(i);
+            child.lockRead();
+            node.unlockRead();
+            node = child;
+        }
+    }
+
+    //INSERT
+
+    /**
+     * Inserts a key to the tree.
+     *
+     * @param key the key to insert to the tree.
+     */
+    public void insert(String key) {
+        String lowKey = key.toLowerCase();
+        if (!insertIntoLeaf(lowKey)) {
+            insertPessimistically(lowKey);
+        }
+    }
+
+    /**
+     * Inserts a key into it's leaf, if the root is not a leaf and the leaf is not full.
+     * Only the leaf is latched in write mode.
+     *
+     * @param key the lowercase key.
+     * @return true if the key was inserted, otherwise false.
+     */
+    private boolean insertIntoLeaf(String key) {
+        ConcurrentBTreeNode node = readLatchInnerRoot();
+        if (node == null) {
+            return false;
+        }
+        while (true) {
+            ConcurrentBTreeNode child = node.getChild(node.findExpectedIndexOfKey(key));
+            if (child.isLeaf()) {
+                child.lockWrite();
+                node.unlockRead();
+                boolean full = child.getN() == 2 * T_VAR - 1;
+                if (!full) {
+                    child.insertKey(child.findExpectedIndexOfKey(key), key);
+                }
+                child.unlockWrite();
+                return !full;
+            }
+            child.lockRead();
+            node.unlockRead();
+            node = child;
+        }
+    }
+
+    /**
+     * Inserts a key, splitting the root if it is full and every full child on the way down,
+     * so the father of a child is released once the child is latched.
+     *
+     * @param key the lowercase key.
+     */
+    private void insertPessimistically(String key) {
+        rootLatch.writeLock().lock();
+        ConcurrentBTreeNode node = root;
+        node.lockWrite();
+        if (node.getN() == 2 * T_VAR - 1) {
+            ConcurrentBTreeNode newRoot = new ConcurrentBTreeNode(T_VAR);
+            newRoot.lockWrite();
+            newRoot.setLeaf(false);
+            newRoot.setChild(0, node);
+            newRoot.splitChild(0);
+            root = newRoot;
+            node.unlockWrite();
+            node = newRoot;
+        }
+        rootLatch.writeLock().unlock();
+        while (!node.isLeaf()) {
+            int i = node.findExpectedIndexOfKey(key);
+            ConcurrentBTreeNode child = node.getChild(i);
+            child.lockWrite();
+            if (child.getN() == 2 * T_VAR - 1) {
+                node.splitChild(i);
+                // A key equal to the median goes left, since only the left child was checked for being full.
+                if (node.getKey(i).compareTo(key) < 0) {
+                    ConcurrentBTreeNode right = node.getChild(i + 1);
+                    right.lockWrite();
+                    child.unlockWrite();
+                    child = right;
+                }
+            }
+            node.unlockWrite();
+            node = child;
+        }
+        node.insertKey(node.findExpectedIndexOfKey(key), key);
+        node.unlockWrite();
+    }
+
+    //DELETE
+
+    /**
+     * Deletes given key from the tree.
+     *
+     * @param key the key to delete.
+     */
+    public void delete(String key) {
+        String lowKey = key.toLowerCase();
+        boolean deleted;
+        Boolean fromLeaf = deleteFromLeaf(lowKey);
+        if (fromLeaf != null) {
+            deleted = fromLeaf;
+        }
+        else {
+            deleted = deletePessimistically(lowKey);
+        }
+        if (!deleted) {
+            System.out.println("Key '" + lowKey + "' is not in the tree.");
+        }
+    }
+
+    /**
+     * Deletes a key from it's leaf, if the root is not a leaf, the key is not in an inner node
+     * and the leaf has at least t keys. Only the leaf is latched in write mode.
+     *
+     * @param key the lowercase key.
+     * @return true if the key was deleted, false if it is not in the tree,
+     * or null if it has to be deleted pessimistically.
+     */
+    private Boolean deleteFromLeaf(String key) {
+        ConcurrentBTreeNode node = readLatchInnerRoot();
+        if (node == null) {
+            return null;
+        }
+        while (true) {
+            int i = node.findExpectedIndexOfKey(key);
+            if (node.keyEquals(i, key)) {
+                node.unlockRead();
+                return null;
+            }
+            ConcurrentBTreeNode child = node.getChild(i);
+            if (child.isLeaf()) {
+                child.lockWrite();
+                node.unlockRead();
+                int j = child.findExpectedIndexOfKey(key);
+                Boolean deleted;
+                if (!child.keyEquals(j, key)) {
+                    deleted = false;
+                }
+                else if (child.getN() >= T_VAR) {
+                    child.removeKey(j);
+                    deleted = true;
+                }
+                else {
+                    deleted = null;
+                }
+                child.unlockWrite();
+                return deleted;
+            }
+            child.lockRead();
+            node.unlockRead();
+            node = child;
+        }
+    }
+
+    /**
+     * Deletes a key, filling every child with t-1 keys on the way down,
+     * so the father of a child is released once the child is latched.
+     *
+     * @param key the lowercase key.
+     * @return true if the key was deleted, false if it is not in the tree.
+     */
+    private boolean deletePessimistically(String key) {
+        rootLatch.writeLock().lock();
+        boolean rootLatched = true;
+        ConcurrentBTreeNode node = root;
+        node.lockWrite();
+        while (true) {
+            int i = node.findExpectedIndexOfKey(key);
+            boolean keyExist = node.keyEquals(i, key);
+            if (node.isLeaf()) {
+                if (keyExist) { //CASE 3
+                    node.removeKey(i);
+                }
+                if (rootLatched) {
+                    rootLatch.writeLock().unlock();
+                }
+                node.unlockWrite();
+                return keyExist;
+            }
+            ConcurrentBTreeNode child;
+            if (keyExist) { //CASE 2
+                ConcurrentBTreeNode left = node.getChild(i);
+                ConcurrentBTreeNode right = node.getChild(i + 1);
+                left.lockWrite();
+                right.lockWrite();
+                if (left.getN() >= T_VAR || right.getN() >= T_VAR) {
+                    if (rootLatched) {
+                        rootLatch.writeLock().unlock();
+                    }
+                    //The node stays latched until the key replacing it's key left the subtree,
+                    //so no writer puts a key between them meanwhile
+                    if (left.getN() >= T_VAR) {
+                        right.unlockWrite();
+                        node.setKey(i, deleteMax(left));
+                    }
+                    else {
+                        left.unlockWrite();
+                        node.setKey(i, deleteMin(right));
+                    }
+                    node.unlockWrite();
+                    return true;
+                }
+                node.mergeChildren(i);
+                right.unlockWrite();
+                child = left;
+            }
+            else { //CASE 1
+                child = fillChild(node, i);
+            }
+            if (rootLatched) {
+                if (node.getN() == 0) {
+                    root = child;
+                }
+                rootLatch.writeLock().unlock();
+                rootLatched = false;
+            }
+            node.unlockWrite();
+            node = child;
+        }
+    }
+
+    /**
+     * Latches the child in given index of a node in write mode, and if it has t-1 keys,
+     * gives it another key from a sibling or merges it with one. The node is latched in write mode.
+     *
+     * @param node  the father of the child.
+     * @param index the index of the child.
+     * @return the latched node that now holds the child's keys.
+     */
+    private ConcurrentBTreeNode fillChild(ConcurrentBTreeNode node, int index) {
+        ConcurrentBTreeNode child = node.getChild(index);
+        child.lockWrite();
+        if (child.getN() >= T_VAR) {
+            return child;
+        }
+        ConcurrentBTreeNode left = index > 0 ? node.getChild(index - 1) : null;
+        ConcurrentBTreeNode right = index < node.getN() ? node.getChild(index + 1) : null;
+        if (left != null) {
+            left.lockWrite();
+        }
+        if (right != null) {
+            right.lockWrite();
+        }
+        ConcurrentBTreeNode filled = node.handleCase1(index);
+        if (left != null && left != filled) {
+            left.unlockWrite();
+        }
+        if (right != null && right != filled) {
+            right.unlockWrite();
+        }
+        if (child != filled) {
+            child.unlockWrite();
+        }
+        return filled;
+    }
+
+    /**
+     * Deletes the max key of the subtree of a node, which is latched in write mode and has at least t keys.
+     *
+     * @param node the root of the subtree.
+     * @return the deleted key.
+     */
+    private String deleteMax(ConcurrentBTreeNode node) {
+        while (!node.isLeaf()) {
+            ConcurrentBTreeNode child = fillChild(node, node.getN());
+            node.unlockWrite();
+            node = child;
+        }
+        String key = node.getKey(node.getN() - 1);
+        node.removeKey(node.getN() - 1);
+        node.unlockWrite();
+        return key;
+    }
+
+    /**
+     * Deletes the min key of the subtree of a node, which is latched in write mode and has at least t keys.
+     *
+     * @param node the root of the subtree.
+     * @return the deleted key.
+     */
+    private String deleteMin(ConcurrentBTreeNode node) {
+        while (!node.isLeaf()) {
+            ConcurrentBTreeNode child = fillChild(node, 0);
+            node.unlockWrite();
+            node = child;
+        }
+        String key = node.getKey(0);
+        node.removeKey(0);
+        node.unlockWrite();
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        ConcurrentBTreeNode root = getRoot();
+        return root.getN() == 0 ? "" : root.toString();
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A node of a ConcurrentBTree, with a latch that guards it's keys, children and amount of keys.
+ * Searches hold the latch in read mode and writers in write mode. A node's leaf flag never changes
+ * after the node is linked into the tree, so it may be read while only the father is latched.
+ */
+public class ConcurrentBTreeNode extends ArrayBTreeNode<ConcurrentBTreeNode> {
+    //FIELDS
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * Array of the keys stored in the node.
+     */
+    private final String[] keys;
+    private final ReentrantReadWriteLock latch = new ReentrantReadWriteLock();
+
+    /**
+     * creates a new node which is a leaf, and creates the children and key arrays with the t inserted
+     *
+     * @param t the parameter of the tree
+     */
+    public ConcurrentBTreeNode(int t) {
+        super(t, new ConcurrentBTreeNode[2 * t]);
+        this.T_VAR = t;
+        keys = new String[2 * t - 1];
+    }
+
+    @Override
+    Object getKeyArray() {
+        return keys;
+    }
+
+    @Override
+    ConcurrentBTreeNode createNode() {
+        return new ConcurrentBTreeNode(T_VAR);
+    }
+
+    @Override
+    void clearKeys(int from, int to) {
+        Arrays.fill(keys, from, to, null);
+    }
+
+    @Override
+    void appendKey(StringBuilder sb, int i) {
+        sb.append(keys[i]);
+    }
+
+    /**
+     * Gets the key in given index.
+     *
+     * @param i the index of the key.
+     * @return the key.
+     */
+    public String getKey(int i) {
+        if (i < 0 || i >= getN()) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + getN());
+        }
+        return keys[i];
+    }
+
+    //LATCH
+
+    void lockRead() {
+        latch.readLock().lock();
+    }
+
+    void unlockRead() {
+        latch.readLock().unlock();
+    }
+
+    void lockWrite() {
+        latch.writeLock().lock();
+    }
+
+    void unlockWrite() {
+        latch.writeLock().unlock();
+    }
+
+    //SEARCH
+
+    /**
+     * Finds the index of the first key in the node which is not smaller than given key,
+     * which is also the index of the child the key would be in.
+     *
+     * @param key the key to search.
+     * @return the index of the first key not smaller than the key, or n if there is none.
+     */
+    int findExpectedIndexOfKey(String key) {
+        int low = 0;
+        int high = getN();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks if the key in given index is equal to given key.
+     *
+     * @param i   the index of the key, which may be n.
+     * @param key the key to compare with.
+     * @return true if there is a key in the index and it is equal to the key, otherwise false.
+     */
+    boolean keyEquals(int i, String key) {
+        return i < getN() && keys[i].equals(key);
+    }
+
+    //KEYS
+
+    /**
+     * Inserts a key in given index, moving the keys after it one place right.
+     *
+     * @param i   the index to insert the key in.
+     * @param key the key to insert.
+     */
+    void insertKey(int i, String key) {
+        openKey(i);
+        keys[i] = key;
+    }
+
+    /**
+     * Puts a key in given index in place of the key there.
+     *
+     * @param i   the index of the key.
+     * @param key the new key.
+     */
+    void setKey(int i, String key) {
+        keys[i] = key;
+    }
+}
@@ -0,0 +1,255 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs readers and writers on a ConcurrentBTree at the same time, then checks that
+ * the tree holds exactly the expected keys and that it's structure is a valid BTree.
+ * Then measures how the read throughput scales with the amount of readers, doubling it from one
+ * reader up to the amount of processors, while a writer keeps changing the tree,
+ * and how the write throughput scales with the amount of writers, which change keys of their own.
+ */
+public class ConcurrentBTreeStressTest {
+    private static final String T_VAL = "3";
+    private static final int WRITERS = 4;
+    private static final int READERS = 8;
+    private static final int OPERATIONS = 50000;
+    private static final int STABLE_KEYS = 2000;
+    /**
+     * How long the readers or writers of every step of the scaling measurements run.
+     */
+    private static final long SCALING_MILLIS = 1000;
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentBTree tree = new ConcurrentBTree(T_VAL);
+        // Keys that are never deleted, so readers must always find them.
+        for (int i = 0; i < STABLE_KEYS; i++) {
+            tree.insert("stable" + i);
+        }
+
+        List<Set<String>> writerKeys = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicInteger errors = new AtomicInteger();
+        for (int w = 0; w < WRITERS; w++) {
+            Set<String> keys = new HashSet<>();
+            writerKeys.add(keys);
+            threads.add(new Thread(createWriter(tree, w, keys)));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(createReader(tree, r, errors)));
+        }
+        long startTime = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long endTime = System.nanoTime();
+
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < STABLE_KEYS; i++) {
+            expected.add("stable" + i);
+        }
+        for (Set<String> keys : writerKeys) {
+            expected.addAll(keys);
+        }
+        //All threads were joined, so the tree doesn't change while it is checked
+        List<String> keys = new ArrayList<>();
+        checkNode(tree.getRoot(), true, tree.getT(), null, null, keys, errors);
+        if (keys.size() != expected.size() || !expected.containsAll(keys)) {
+            fail(errors, "tree holds " + keys.size() + " keys, expected " + expected.size());
+        }
+        System.out.println("Time: " + (endTime - startTime) / 1000000 + " ms");
+
+        System.out.println("readers\tsearches/ms\tper reader");
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int readers = 1; readers <= processors; readers *= 2) {
+            double throughput = measureReads(tree, readers, errors);
+            System.out.printf("%d\t%.0f\t%.0f%n", readers, throughput, throughput / readers);
+        }
+
+        System.out.println("writers\tupdates/ms\tper writer");
+        for (int writers = 1; writers <= processors; writers *= 2) {
+            double throughput = measureWrites(writers, errors);
+            System.out.printf("%d\t%.0f\t%.0f%n", writers, throughput, throughput / writers);
+        }
+        System.out.println(errors.get() == 0 ? "Passed" : "Failed with " + errors.get() + " errors");
+    }
+
+    /**
+     * Measures the read throughput of given amount of readers, while a writer inserts and deletes keys.
+     *
+     * @return the amount of searches per millisecond of all readers together.
+     */
+    private static double measureReads(ConcurrentBTree tree, int readers, AtomicInteger errors) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder searches = new LongAdder();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(readers);
+            while (running.get()) {
+                String key = "scaling" + random.nextInt(OPERATIONS);
+                tree.insert(key);
+                tree.delete(key);
+            }
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            int id = r;
+            threads.add(new Thread(() -> {
+                Random random = new Random(id);
+                long count = 0;
+                while (running.get()) {
+                    String key = "stable" + random.nextInt(STABLE_KEYS);
+                    if (!tree.contains(key)) {
+                        fail(errors, "missing " + key);
+                    }
+                    count++;
+                }
+                searches.add(count);
+            }));
+        }
+        writer.start();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(SCALING_MILLIS);
+        running.set(false);
+        writer.join();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return searches.sum() / (double) SCALING_MILLIS;
+    }
+
+    /**
+     * Measures the write throughput of given amount of writers on a new tree, every writer inserting
+     * and deleting keys of it's own, so writers that reach different leaves don't wait for each other.
+     *
+     * @return the amount of inserts and deletes per millisecond of all writers together.
+     */
+    private static double measureWrites(int writers, AtomicInteger errors) throws InterruptedException {
+        ConcurrentBTree tree = new ConcurrentBTree(T_VAL);
+        for (int i = 0; i < STABLE_KEYS; i++) {
+            tree.insert("stable" + i);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder updates = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int id = w;
+            threads.add(new Thread(() -> {
+                Random random = new Random(id);
+                long count = 0;
+                while (running.get()) {
+                    String key = "scaling" + id + "_" + random.nextInt(OPERATIONS);
+                    tree.insert(key);
+                    tree.delete(key);
+                    count += 2;
+                }
+                updates.add(count);
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(SCALING_MILLIS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        List<String> keys = new ArrayList<>();
+        checkNode(tree.getRoot(), true, tree.getT(), null, null, keys, errors);
+        if (keys.size() != STABLE_KEYS) {
+            fail(errors, "tree holds " + keys.size() + " keys after the writers, expected " + STABLE_KEYS);
+        }
+        return updates.sum() / (double) SCALING_MILLIS;
+    }
+
+    /**
+     * Creates a writer that randomly inserts and deletes keys of it's own.
+     */
+    private static Runnable createWriter(ConcurrentBTree tree, int id, Set<String> keys) {
+        return () -> {
+            Random random = new Random(id);
+            for (int i = 0; i < OPERATIONS; i++) {
+                String key = "writer" + id + "_" + random.nextInt(OPERATIONS / 10);
+                if (keys.contains(key)) {
+                    tree.delete(key);
+                    keys.remove(key);
+                }
+                else {
+                    tree.insert(key);
+                    keys.add(key);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a reader that searches stable keys, which must always be found.
+     */
+    private static Runnable createReader(ConcurrentBTree tree, int id, AtomicInteger errors) {
+        return () -> {
+            Random random = new Random(WRITERS + id);
+            for (int i = 0; i < OPERATIONS * 4; i++) {
+                String key = "stable" + random.nextInt(STABLE_KEYS);
+                if (!tree.contains(key)) {
+                    fail(errors, "missing " + key);
+                }
+                tree.contains("writer" + random.nextInt(WRITERS) + "_" + random.nextInt(OPERATIONS / 10));
+            }
+        };
+    }
+
+    /**
+     * Checks that every node but the root has t-1 to 2t-1 sorted keys, that the keys
+     * are between the keys around the node in it's father, and that all leaves have the same depth,
+     * and collects the keys of the subtree in order.
+     *
+     * @return the height of the node.
+     */
+    private static int checkNode(ConcurrentBTreeNode node, boolean isRoot, int t, String low, String high,
+                                 List<String> keys, AtomicInteger errors) {
+        if (node.getN() > 2 * t - 1 || (!isRoot && node.getN() < t - 1)) {
+            fail(errors, "node with " + node.getN() + " keys");
+        }
+        for (int i = 0; i < node.getN(); i++) {
+            String key = node.getKey(i);
+            if ((low != null && key.compareTo(low) < 0) || (high != null && key.compareTo(high) > 0)
+                    || (i > 0 && node.getKey(i - 1).compareTo(key) > 0)) {
+                fail(errors, "key out of order: " + key);
+            }
+        }
+        if (node.isLeaf()) {
+            for (int i = 0; i < node.getN(); i++) {
+                keys.add(node.getKey(i));
+            }
+            return 0;
+        }
+        int height = -1;
+        for (int i = 0; i <= node.getN(); i++) {
+            String childLow = i == 0 ? low : node.getKey(i - 1);
+            String childHigh = i == node.getN() ? high : node.getKey(i);
+            int childHeight = checkNode(node.getChild(i), false, t, childLow, childHigh, keys, errors);
+            if (height != -1 && height != childHeight) {
+                fail(errors, "leaves in different depths");
+            }
+            height = childHeight;
+            if (i < node.getN()) {
+                keys.add(node.getKey(i));
+            }
+        }
+        return height + 1;
+    }
+
+    private static void fail(AtomicInteger errors, String message) {
+        errors.incrementAndGet();
+        System.out.println(message);
+    }
+}
@@ -0,0 +1,181 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A BTree whose inserts and deletes survive a crash. Every change is recorded in a WriteAheadLog,
+ * and insert and delete return only after their record was forced to the disk, together with the
+ * records of any other threads that committed at the same time.
+ * <p>
+ * A checkpoint writes a Snapshot of the tree to a checkpoint file and empties the log. On startup the
+ * tree is restored from the last checkpoint and the log is replayed onto it, instead of building
+ * the tree again from bad_passwords.txt. The tree is kept as a set of keys, so inserting a key which
+ * is in the tree or deleting a key which isn't changes nothing, and replaying a record which is
+ * already in the checkpoint is harmless.
+ * <p>
+ * The tree is in copy-on-write mode, so searches take no locks. A change is visible to searches
+ * as soon as it is made, which may be shortly before it is durable.
+ */
+public class DurableBTree implements Closeable {
+    private static final String CHECKPOINT_FILE = "btree.checkpoint";
+    private static final String LOG_FILE = "btree.wal";
+
+    //FIELDS
+
+    private final BTree tree;
+    private final WriteAheadLog log;
+    private final Path checkpointPath;
+    /**
+     * Keeps the order of the changes in the tree the same as the order of their records.
+     */
+    private final Object writeLock = new Object();
+    /**
+     * The amount of log records replayed on startup.
+     */
+    private final int replayedAmount;
+
+    /**
+     * Opens the tree stored in given directory, or creates an empty tree if the directory
+     * holds no checkpoint and no log.
+     *
+     * @param tVal      the value of the tree's constant.
+     * @param directory the directory of the checkpoint and the log, which must exist.
+     * @throws UncheckedIOException if the files can't be read.
+     */
+    public DurableBTree(String tVal, String directory) {
+        tree = new BTree(tVal, true);
+        checkpointPath = Paths.get(directory, CHECKPOINT_FILE);
+        if (Files.exists(checkpointPath)) {
+            Snapshot.load(tree, checkpointPath.toString());
+        }
+        log = new WriteAheadLog(Paths.get(directory, LOG_FILE).toString());
+        replayedAmount = log.replay(this::applyInsert, this::applyDelete);
+    }
+
+    public BTree getTree() {
+        return tree;
+    }
+
+    public int getReplayedAmount() {
+        return replayedAmount;
+    }
+
+    /**
+     * Gets the size of the log, which a caller may use to decide when to checkpoint.
+     *
+     * @return the size of the log in bytes.
+     */
+    public long getLogSize() {
+        return log.getFileSize();
+    }
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        return tree.contains(key);
+    }
+
+    /**
+     * Inserts a key to the tree and waits until the insert is durable.
+     *
+     * @param key the key to insert.
+     * @return true if the key was inserted, or false if it was already in the tree.
+     */
+    public boolean insert(String key) {
+        String lowKey = key.toLowerCase();
+        boolean inserted;
+        long position;
+        synchronized (writeLock) {
+            inserted = !tree.contains(lowKey);
+            if (inserted) {
+                position = log.append(WriteAheadLog.INSERT, lowKey);
+                tree.insert(lowKey);
+            }
+            else {
+                //The insert that added the key may not be durable yet
+                position = log.getAppendedPosition();
+            }
+        }
+        log.commit(position);
+        return inserted;
+    }
+
+    /**
+     * Deletes a key from the tree and waits until the delete is durable.
+     *
+     * @param key the key to delete.
+     * @return true if the key was deleted, or false if it was not in the tree.
+     */
+    public boolean delete(String key) {
+        String lowKey = key.toLowerCase();
+        boolean deleted;
+        long position;
+        synchronized (writeLock) {
+            deleted = tree.contains(lowKey);
+            if (deleted) {
+                position = log.append(WriteAheadLog.DELETE, lowKey);
+                tree.delete(lowKey);
+            }
+            else {
+                position = log.getAppendedPosition();
+            }
+        }
+        log.commit(position);
+        return deleted;
+    }
+
+    //REPLAY
+
+    private void applyInsert(String key) {
+        if (!tree.contains(key)) {
+            tree.insert(key);
+        }
+    }
+
+    private void applyDelete(String key) {
+        if (tree.contains(key)) {
+            tree.delete(key);
+        }
+    }
+
+    //CHECKPOINT
+
+    /**
+     * Writes a snapshot of the tree to a new checkpoint file, which replaces the previous one
+     * at once, and then empties the log. Changes wait until the checkpoint is done.
+     *
+     * @throws UncheckedIOException if the checkpoint can't be written.
+     */
+    public void checkpoint() {
+        synchronized (writeLock) {
+            Path temporary = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+            Snapshot.write(tree, temporary.toString());
+            try {
+                Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                //The rename is durable only once the directory is forced
+                try (FileChannel directory = FileChannel.open(checkpointPath.getParent(), StandardOpenOption.READ)) {
+                    directory.force(true);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            //Only after the checkpoint replaced the previous one, so a crash between them replays the log onto it
+            log.truncate();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
@@ -0,0 +1,160 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.UnaryOperator;
+
+/**
+ * A BTree of keys of any type, ordered by a comparator or by the keys' natural order.
+ * An optional codec converts every key before the tree stores or searches it, the way
+ * BTree lowercases it's keys.
+ * <p>
+ * BTree, for lowercase passwords, and LongBTree, for numeric keys, remain the specialized
+ * trees of the built in key types: they compare keys without a comparator and without
+ * boxing. Without a comparator, this tree also skips the comparator and calls compareTo directly.
+ * Insert and delete are the ones of ArrayBTree, which BTree and LongBTree share, so only the comparison
+ * of the keys is implemented here.
+ *
+ * @param <K> the type of the keys.
+ */
+public class GenericBTree<K> extends ArrayBTree<GenericBTreeNode<K>> {
+
+    //FIELDS
+
+    /**
+     * The order of the keys, or null for their natural order.
+     */
+    private final Comparator<? super K> comparator;
+    /**
+     * Converts keys before they are stored or searched, or null to use them as they are.
+     */
+    private final UnaryOperator<K> codec;
+    /**
+     * The key of the current insert or delete.
+     */
+    private K writtenKey;
+
+    /**
+     * Constructs an empty GenericBTree.
+     *
+     * @param tVal       the value of the tree's constant.
+     * @param comparator the order of the keys, or null for their natural order.
+     * @param codec      converts keys before they are stored or searched, or null.
+     */
+    public GenericBTree(String tVal, Comparator<? super K> comparator, UnaryOperator<K> codec) {
+        super(tVal);
+        this.comparator = comparator;
+        this.codec = codec;
+    }
+
+    /**
+     * Constructs an empty GenericBTree of keys in their natural order.
+     *
+     * @param tVal the value of the tree's constant.
+     */
+    public GenericBTree(String tVal) {
+        this(tVal, null, null);
+    }
+
+    /**
+     * Creates a tree of case sensitive passwords.
+     *
+     * @param tVal the value of the tree's constant.
+     * @return an empty tree.
+     */
+    public static GenericBTree<String> ofCaseSensitiveStrings(String tVal) {
+        return new GenericBTree<>(tVal);
+    }
+
+    /**
+     * Creates a tree of byte arrays, such as password hashes, compared as unsigned bytes.
+     *
+     * @param tVal the value of the tree's constant.
+     * @return an empty tree.
+     */
+    public static GenericBTree<byte[]> ofBytes(String tVal) {
+        return new GenericBTree<>(tVal, Arrays::compareUnsigned, null);
+    }
+
+    /**
+     * Checks a key and converts it before it is stored or searched.
+     *
+     * @param key the key.
+     * @return the key to store or search.
+     * @throws NullPointerException if the key is null.
+     */
+    private K encode(K key) {
+        if (key == null) {
+            throw new NullPointerException("Argument is null");
+        }
+        return codec == null ? key : codec.apply(key);
+    }
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(K key) {
+        K encoded = encode(key);
+        GenericBTreeNode<K> node = getRoot();
+        while (true) {
+            int i = node.findExpectedIndexOfKey(encoded, comparator);
+            if (i < node.getN() && node.compareKey(i, encoded, comparator) == 0) {
+                return true;
+            }
+            if (node.isLeaf()) {
+                return false;
+            }
+            node = node.getChild(i);
+        }
+    }
+
+    /**
+     * Receives a key and inserts it into the root and splitting the roots if it is full.
+     *
+     * @param key the key to insert to the tree.
+     */
+    public void insert(K key) {
+        writtenKey = encode(key);
+        insert();
+        writtenKey = null;
+    }
+
+    /**
+     * Deletes given key from the tree.
+     *
+     * @param key the key to delete.
+     * @return true if the key was deleted, otherwise false.
+     */
+    public boolean delete(K key) {
+        writtenKey = encode(key);
+        boolean deleted = delete();
+        writtenKey = null;
+        return deleted;
+    }
+
+    @Override
+    GenericBTreeNode<K> createNode(int t) {
+        return new GenericBTreeNode<>(t);
+    }
+
+    @Override
+    int findIndexOfWrittenKey(GenericBTreeNode<K> node) {
+        return node.findExpectedIndexOfKey(writtenKey, comparator);
+    }
+
+    @Override
+    int compareWrittenKey(GenericBTreeNode<K> node, int i) {
+        return node.compareKey(i, writtenKey, comparator);
+    }
+
+    @Override
+    void insertWrittenKey(GenericBTreeNode<K> node, int i) {
+        node.insertKey(i, writtenKey);
+    }
+
+    @Override
+    void setWrittenKey(GenericBTreeNode<K> node, int i) {
+        writtenKey = node.getKey(i);
+    }
+}
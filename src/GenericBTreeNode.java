@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A node of a GenericBTree. The tree's comparator is passed to the methods that compare keys,
+ * so the nodes don't keep a reference to it.
+ *
+ * @param <K> the type of the keys.
+ */
+public class GenericBTreeNode<K> extends ArrayBTreeNode<GenericBTreeNode<K>> {
+    //FIELDS
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * Array of the keys stored in the node.
+     */
+    private final Object[] keys;
+
+    /**
+     * creates a new node which is a leaf, and creates the children and key arrays with the t inserted
+     *
+     * @param t the parameter of the tree
+     */
+    public GenericBTreeNode(int t) {
+        super(t, newChildren(2 * t));
+        this.T_VAR = t;
+        keys = new Object[2 * t - 1];
+    }
+
+    /**
+     * Creates an array of children. An array of a generic type can't be created,
+     * so an array of the node type with any keys is cast to it, which only ever holds nodes of the same tree.
+     *
+     * @param size the size of the array.
+     * @return the array.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K> GenericBTreeNode<K>[] newChildren(int size) {
+        return (GenericBTreeNode<K>[]) new GenericBTreeNode<?>[size];
+    }
+
+    @Override
+    Object getKeyArray() {
+        return keys;
+    }
+
+    @Override
+    GenericBTreeNode<K> createNode() {
+        return new GenericBTreeNode<>(T_VAR);
+    }
+
+    @Override
+    void clearKeys(int from, int to) {
+        Arrays.fill(keys, from, to, null);
+    }
+
+    @Override
+    void appendKey(StringBuilder sb, int i) {
+        sb.append(getKey(i));
+    }
+
+    /**
+     * Gets the key in given index.
+     *
+     * @param i the index of the key.
+     * @return the key.
+     */
+    @SuppressWarnings("unchecked")
+    public K getKey(int i) {
+        if (i < 0 || i >= getN()) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + getN());
+        }
+        return (K) keys[i];
+    }
+
+    //SEARCH
+
+    /**
+     * Finds the index of the first key in the node which is not smaller than given key,
+     * which is also the index of the child the key would be in.
+     * Without a comparator the keys are compared by their natural order.
+     *
+     * @param key        the key to search.
+     * @param comparator the tree's comparator, or null.
+     * @return the index of the first key not smaller than the key, or n if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public int findExpectedIndexOfKey(K key, Comparator<? super K> comparator) {
+        int low = 0;
+        int high = getN();
+        if (comparator == null) {
+            Comparable<Object> comparableKey = (Comparable<Object>) key;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparableKey.compareTo(keys[mid]) > 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+        }
+        else {
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare((K) keys[mid], key) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the key in given index with given key.
+     *
+     * @param i          the index of the key.
+     * @param key        the key to compare with.
+     * @param comparator the tree's comparator, or null.
+     * @return a negative number, zero or a positive number if the key in the index
+     * is smaller, equal or greater than the given key.
+     */
+    @SuppressWarnings("unchecked")
+    public int compareKey(int i, K key, Comparator<? super K> comparator) {
+        if (comparator == null) {
+            return ((Comparable<Object>) keys[i]).compareTo(key);
+        }
+        return comparator.compare((K) keys[i], key);
+    }
+
+    //KEYS
+
+    /**
+     * Inserts a key in given index, moving the keys after it one place right.
+     *
+     * @param i   the index to insert the key in.
+     * @param key the key to insert.
+     */
+    void insertKey(int i, K key) {
+        openKey(i);
+        keys[i] = key;
+    }
+}
@@ -33,6 +33,14 @@ public class HashFunction{
         return prime;
     }
 
+    public int getAlpha() {
+        return ALPHA;
+    }
+
+    public int getBeta() {
+        return BETA;
+    }
+
     @Override
     public boolean equals(Object other) {
         if(other instanceof HashFunction){
@@ -13,6 +13,19 @@ public class HashFunctionsList implements Iterable<HashFunction> {
         createFunctionsList(path);
     }
 
+    /**
+     * Constructs a list of given hash functions, in their order.
+     *
+     * @param functions the hash functions.
+     * @throws NullPointerException if given list is null.
+     */
+    public HashFunctionsList(LinkedList<HashFunction> functions) {
+        if (functions == null) {
+            throw new NullPointerException("Argument is null");
+        }
+        hashFunctionsList = functions;
+    }
+
     /**
      * Creates a list of hash functions with the parameters read from a txt file.
      *
@@ -26,14 +26,19 @@ public class HashTable {
      */
     public void updateTable(String path) {
         LinkedList<Integer> badPasswords = UsefulFunctions.getKeysList(path);
-        int index; Integer key;
         for (Integer badPassword : badPasswords) {
-            index = hashFunction(badPassword);
-            key = badPassword;
-            table[index].addFirst(key);
+            addKey(badPassword);
         }
     }
 
+    /**
+     * Adds a single key to the table.
+     * @param key the key of a password, as converted by UsefulFunctions.convertToKey.
+     */
+    public void addKey(Integer key) {
+        table[hashFunction(key)].addFirst(key);
+    }
+
     /**
      * Runs a search of keys from txt file in given path and gets the time
      * took for the search.
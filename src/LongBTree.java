@@ -0,0 +1,104 @@
+/**
+ * A BTree of numeric keys, such as the ones UsefulFunctions.convertToKeys makes of passwords.
+ * The nodes keep their keys in primitive long arrays (see LongBTreeNode), so keys are neither
+ * boxed nor compared through compareTo while searching or moving them between nodes.
+ * Insert and delete are the ones of ArrayBTree, which BTree and GenericBTree share. ArrayBTree only asks
+ * this tree to compare the key of the current write with the key in an index of a node, so the key
+ * is kept here as a primitive long and never boxed.
+ */
+public class LongBTree extends ArrayBTree<LongBTreeNode> {
+
+    /**
+     * The key of the current insert or delete.
+     */
+    private long writtenKey;
+
+    /**
+     * Constructs an empty LongBTree.
+     *
+     * @param tVal the value of the tree's constant.
+     */
+    public LongBTree(String tVal) {
+        super(tVal);
+    }
+
+    /**
+     * Inserts the keys of all passwords from txt file in given path to the tree.
+     *
+     * @param path the path from which to read the passwords.
+     */
+    public void createFullTree(String path) {
+        LinkedList<String> passwordsList = UsefulFunctions.createStringListFromFile(path);
+        if (passwordsList != null) {
+            for (int key : UsefulFunctions.convertToKeys(passwordsList)) {
+                insert(key);
+            }
+        }
+    }
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(long key) {
+        LongBTreeNode node = getRoot();
+        while (true) {
+            int i = node.findExpectedIndexOfKey(key);
+            if (node.keyEquals(i, key)) {
+                return true;
+            }
+            if (node.isLeaf()) {
+                return false;
+            }
+            node = node.getChild(i);
+        }
+    }
+
+    /**
+     * Receives a key and inserts it into the root and splitting the roots if it is full.
+     *
+     * @param key the key to insert to the tree.
+     */
+    public void insert(long key) {
+        writtenKey = key;
+        insert();
+    }
+
+    /**
+     * Deletes given key from the tree.
+     *
+     * @param key the key to delete.
+     * @return true if the key was deleted, otherwise false.
+     */
+    public boolean delete(long key) {
+        writtenKey = key;
+        return delete();
+    }
+
+    @Override
+    LongBTreeNode createNode(int t) {
+        return new LongBTreeNode(t);
+    }
+
+    @Override
+    int findIndexOfWrittenKey(LongBTreeNode node) {
+        return node.findExpectedIndexOfKey(writtenKey);
+    }
+
+    @Override
+    int compareWrittenKey(LongBTreeNode node, int i) {
+        return Long.compare(node.getKey(i), writtenKey);
+    }
+
+    @Override
+    void insertWrittenKey(LongBTreeNode node, int i) {
+        node.insertKey(i, writtenKey);
+    }
+
+    @Override
+    void setWrittenKey(LongBTreeNode node, int i) {
+        writtenKey = node.getKey(i);
+    }
+}
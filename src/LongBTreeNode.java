@@ -0,0 +1,125 @@
+/**
+ * A node of a LongBTree, keeping it's keys in a primitive long array.
+ */
+public class LongBTreeNode extends ArrayBTreeNode<LongBTreeNode> {
+    //FIELDS
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * Array of the keys stored in the node.
+     */
+    private final long[] keys;
+
+    /**
+     * creates a new node which is a leaf, and creates the children and key arrays with the t inserted
+     *
+     * @param t the parameter of the tree
+     */
+    public LongBTreeNode(int t) {
+        super(t, new LongBTreeNode[2 * t]);
+        this.T_VAR = t;
+        keys = new long[2 * t - 1];
+    }
+
+    @Override
+    Object getKeyArray() {
+        return keys;
+    }
+
+    @Override
+    LongBTreeNode createNode() {
+        return new LongBTreeNode(T_VAR);
+    }
+
+    @Override
+    void clearKeys(int from, int to) {
+        //Primitive keys keep nothing from being collected
+    }
+
+    @Override
+    void appendKey(StringBuilder sb, int i) {
+        sb.append(keys[i]);
+    }
+
+    // Getters and Setters
+
+    /**
+     * Gets the key in given index.
+     *
+     * @param i the index of the key.
+     * @return the key.
+     */
+    public long getKey(int i) {
+        if (i < 0 || i >= getN()) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + getN());
+        }
+        return keys[i];
+    }
+
+    long[] getKeys() {
+        return keys;
+    }
+
+    //SEARCH
+
+    /**
+     * Finds the index of the first key in the node which is not smaller than given key,
+     * which is also the index of the child the key would be in.
+     * Uses LongVectorSearch when the JVM runs with the Vector API, otherwise the branch free search.
+     *
+     * @param key the key to search.
+     * @return the index of the first key not smaller than the key, or n if there is none.
+     */
+    public int findExpectedIndexOfKey(long key) {
+        if (LongVectorSearch.isSupported()) {
+            return LongVectorSearch.findExpectedIndexOfKey(keys, getN(), key);
+        }
+        return findExpectedIndexOfKeyBranchFree(key);
+    }
+
+    /**
+     * Finds the index of the first key in the node which is not smaller than given key.
+     * Every step halves the range without branching on the comparison: the JIT compiles the
+     * choice of the half to a conditional move, so the processor has no branch to mispredict,
+     * which a search for a random key would mispredict in about half of the steps.
+     *
+     * @param key the key to search.
+     * @return the index of the first key not smaller than the key, or n if there is none.
+     */
+    int findExpectedIndexOfKeyBranchFree(long key) {
+        int low = 0;
+        int length = getN();
+        while (length > 1) {
+            int half = length >>> 1;
+            low = keys[low + half - 1] < key ? low + half : low;
+            length -= half;
+        }
+        return length == 1 && keys[low] < key ? low + 1 : low;
+    }
+
+    /**
+     * Checks if the key in given index is equal to given key.
+     *
+     * @param i   the index of the key, which may be n.
+     * @param key the key to compare with.
+     * @return true if there is a key in the index and it is equal to the key, otherwise false.
+     */
+    public boolean keyEquals(int i, long key) {
+        return i < getN() && keys[i] == key;
+    }
+
+    //KEYS
+
+    /**
+     * Inserts a key in given index, moving the keys after it one place right.
+     *
+     * @param i   the index to insert the key in.
+     * @param key the key to insert.
+     */
+    void insertKey(int i, long key) {
+        openKey(i);
+        keys[i] = key;
+    }
+}
@@ -0,0 +1,142 @@
+import java.util.Random;
+
+/**
+ * Compares the in-node searches of LongBTreeNode, the branch free search and the vector search,
+ * against a linear scan of the keys array and a binary search that branches on every comparison,
+ * for t values from 16 to 256. Every search descends a whole LongBTree of random keys.
+ * The reported times are the total time of searching all the probes, in milliseconds.
+ * The vector search is only measured when the JVM is started with --add-modules jdk.incubator.vector.
+ */
+public class LongNodeSearchBenchmark {
+    private static final int KEYS_AMOUNT = 500000;
+    private static final int PROBES_AMOUNT = 500000;
+    private static final int ROUNDS = 5;
+    private static final int LINEAR = 0;
+    private static final int BINARY = 1;
+    private static final int BRANCH_FREE = 2;
+    private static final int VECTOR = 3;
+
+    public static void main(String[] args) {
+        long[] keys = createRandomKeys(KEYS_AMOUNT, 1);
+        long[] probes = createRandomKeys(PROBES_AMOUNT, 2);
+        //Half of the probes are keys in the tree
+        System.arraycopy(keys, 0, probes, 0, PROBES_AMOUNT / 2);
+        boolean vectorSupported = LongVectorSearch.isSupported();
+        System.out.println("t\tlinear\tbinary\tbranch-free\tvector");
+        for (int t = 16; t <= 256; t *= 2) {
+            LongBTree tree = new LongBTree(Integer.toString(t));
+            for (long key : keys) {
+                tree.insert(key);
+            }
+            double linear = Double.MAX_VALUE;
+            double binary = Double.MAX_VALUE;
+            double branchFree = Double.MAX_VALUE;
+            double vector = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                linear = Math.min(linear, timeSearch(tree, probes, LINEAR));
+                binary = Math.min(binary, timeSearch(tree, probes, BINARY));
+                branchFree = Math.min(branchFree, timeSearch(tree, probes, BRANCH_FREE));
+                if (vectorSupported) {
+                    vector = Math.min(vector, timeSearch(tree, probes, VECTOR));
+                }
+            }
+            System.out.printf("%d\t%.3f\t%.3f\t%.3f\t%s%n", t, linear, binary, branchFree,
+                    vectorSupported ? String.format("%.3f", vector) : "-");
+        }
+    }
+
+    /**
+     * Creates an array of random keys.
+     *
+     * @param amount the amount of keys to create.
+     * @param seed   the seed of the random generator.
+     * @return the array of keys.
+     */
+    private static long[] createRandomKeys(int amount, long seed) {
+        Random random = new Random(seed);
+        long[] keys = new long[amount];
+        for (int i = 0; i < amount; i++) {
+            keys[i] = random.nextLong();
+        }
+        return keys;
+    }
+
+    /**
+     * Searches all probes in the tree with one of the in-node searches.
+     *
+     * @param tree   the tree to search in.
+     * @param probes the keys to search.
+     * @param search LINEAR, BINARY, BRANCH_FREE or VECTOR.
+     * @return the time of the searches in milliseconds.
+     */
+    private static double timeSearch(LongBTree tree, long[] probes, int search) {
+        int found = 0;
+        double startTime = System.nanoTime();
+        for (long probe : probes) {
+            if (search(tree.getRoot(), probe, search)) {
+                found++;
+            }
+        }
+        double time = BenchmarkUtils.millisSince(startTime);
+        BenchmarkUtils.consume(found);
+        return time;
+    }
+
+    /**
+     * Searches for a key with one of the in-node searches of each node's keys.
+     *
+     * @param node   the root of the subtree to search in.
+     * @param key    the key to search.
+     * @param search LINEAR, BINARY, BRANCH_FREE or VECTOR.
+     * @return true if the key is in the subtree, otherwise false.
+     */
+    private static boolean search(LongBTreeNode node, long key, int search) {
+        while (true) {
+            long[] keys = node.getKeys();
+            int n = node.getN();
+            int i;
+            if (search == LINEAR) {
+                i = linearSearch(keys, n, key);
+            }
+            else if (search == BINARY) {
+                i = binarySearch(keys, n, key);
+            }
+            else if (search == BRANCH_FREE) {
+                i = node.findExpectedIndexOfKeyBranchFree(key);
+            }
+            else {
+                i = LongVectorSearch.findExpectedIndexOfKey(keys, n, key);
+            }
+            if (i < n && keys[i] == key) {
+                return true;
+            }
+            if (node.isLeaf()) {
+                return false;
+            }
+            node = node.getChild(i);
+        }
+    }
+
+    private static int linearSearch(long[] keys, int n, long key) {
+        int i = 0;
+        while (i < n && keys[i] < key) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int binarySearch(long[] keys, int n, long key) {
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
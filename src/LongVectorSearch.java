@@ -0,0 +1,107 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * The SIMD in-node search of LongBTreeNode, on the incubating Vector API.
+ * The API is looked up by reflection when the class is loaded, so the code compiles and runs without
+ * the jdk.incubator.vector module, which is only resolved when the JVM is started with
+ * --add-modules jdk.incubator.vector. Without it, or on a processor whose preferred vectors hold
+ * less than two longs, the search is not supported and LongBTreeNode uses its branch free search.
+ * <p>
+ * The search halves the keys without branching, like the branch free search, until a few vectors
+ * of keys are left, and then counts the keys smaller than the searched key in them, a whole vector
+ * in one comparison. Since the keys are sorted, the count is the index of the first key not smaller.
+ */
+public class LongVectorSearch {
+    /**
+     * The amount of vectors of keys left when the halving stops.
+     */
+    private static final int VECTORS_IN_WINDOW = 4;
+    /**
+     * Counts the keys smaller than a key in a vector of keys starting at an index:
+     * (long[] keys, int index, long key) -> int. Null if the search is not supported.
+     */
+    private static final MethodHandle COUNT_SMALLER;
+    /**
+     * The amount of longs in a vector, or 0 if the search is not supported.
+     */
+    private static final int LANES;
+
+    static {
+        MethodHandle countSmaller = null;
+        int lanes = 0;
+        try {
+            Class<?> longVector = Class.forName("jdk.incubator.vector.LongVector");
+            Class<?> species = Class.forName("jdk.incubator.vector.VectorSpecies");
+            Class<?> operators = Class.forName("jdk.incubator.vector.VectorOperators");
+            Class<?> comparison = Class.forName("jdk.incubator.vector.VectorOperators$Comparison");
+            Class<?> mask = Class.forName("jdk.incubator.vector.VectorMask");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Object preferred = lookup.findStaticGetter(longVector, "SPECIES_PREFERRED", species).invoke();
+            Object lessThan = lookup.findStaticGetter(operators, "LT", comparison).invoke();
+            int length = (int) lookup.findVirtual(species, "length", MethodType.methodType(int.class)).invoke(preferred);
+            //LongVector.fromArray(preferred, keys, index).compare(LT, key).trueCount()
+            MethodHandle fromArray = lookup.findStatic(longVector, "fromArray",
+                    MethodType.methodType(longVector, species, long[].class, int.class)).bindTo(preferred);
+            MethodHandle compare = MethodHandles.insertArguments(lookup.findVirtual(longVector, "compare",
+                    MethodType.methodType(mask, comparison, long.class)), 1, lessThan);
+            MethodHandle trueCount = lookup.findVirtual(mask, "trueCount", MethodType.methodType(int.class));
+            MethodHandle handle = MethodHandles.collectArguments(MethodHandles.filterReturnValue(compare, trueCount), 0, fromArray);
+            if (length > 1) {
+                countSmaller = handle.asType(MethodType.methodType(int.class, long[].class, int.class, long.class));
+                lanes = length;
+            }
+        } catch (Throwable e) {
+            //The module is not resolved, so the search is not supported
+        }
+        COUNT_SMALLER = countSmaller;
+        LANES = lanes;
+    }
+
+    /**
+     * Checks if the JVM runs with the Vector API and the processor has vectors of at least two longs.
+     *
+     * @return true if the search is supported, otherwise false.
+     */
+    public static boolean isSupported() {
+        return COUNT_SMALLER != null;
+    }
+
+    /**
+     * Finds the index of the first key in a sorted array of keys which is not smaller than given key.
+     *
+     * @param keys the keys.
+     * @param n    the amount of keys in the array.
+     * @param key  the key to search.
+     * @return the index of the first key not smaller than the key, or n if there is none.
+     * @throws IllegalStateException if the search is not supported.
+     */
+    static int findExpectedIndexOfKey(long[] keys, int n, long key) {
+        if (COUNT_SMALLER == null) {
+            throw new IllegalStateException("The Vector API is not available");
+        }
+        int low = 0;
+        int length = n;
+        while (length > VECTORS_IN_WINDOW * LANES) {
+            int half = length >>> 1;
+            low = keys[low + half - 1] < key ? low + half : low;
+            length -= half;
+        }
+        int end = low + length;
+        int count = 0;
+        int i = low;
+        try {
+            for (; i + LANES <= end; i += LANES) {
+                count += (int) COUNT_SMALLER.invokeExact(keys, i, key);
+            }
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+        //The keys after the last whole vector
+        for (; i < end; i++) {
+            count += keys[i] < key ? 1 : 0;
+        }
+        return low + count;
+    }
+}
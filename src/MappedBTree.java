@@ -0,0 +1,278 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+/**
+ * A read only BTree searched directly in a memory mapped image file, without creating
+ * any node objects. Processes that map the same image share one copy of it in the page cache.
+ * <p>
+ * The image starts with a header page, followed by the nodes in breadth first order. A node
+ * that fits in a page never crosses a page boundary. Each node holds the amount of keys n,
+ * a leaf flag, n + 1 child offsets if it is internal, n + 1 offsets of the keys' starts
+ * relative to the node, and the keys' UTF-8 bytes. Keys are compared by their UTF-8 bytes,
+ * which is the same order as the tree's for keys without supplementary characters.
+ * The image is mapped as a single buffer, so it is limited to 2GB.
+ */
+public class MappedBTree implements Closeable {
+    /**
+     * Identifies an image of a BTree.
+     */
+    private static final int MAGIC = 0x4254494d;
+    private static final int VERSION = 1;
+    private static final int PAGE_SIZE = 4096;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int ROOT_OFFSET = 8;
+    private static final int KEYS_AMOUNT_OFFSET = 12;
+    /**
+     * The size of a node's header, holding n and the leaf flag.
+     */
+    private static final int NODE_HEADER_SIZE = 8;
+    /**
+     * The fill factor of the tree exported instead of a tree with keys deleted lazily.
+     */
+    private static final double BULK_LOAD_FILL_FACTOR = 0.75;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer image;
+    /**
+     * The offset of the root node in the image.
+     */
+    private final int root;
+    private final int keysAmount;
+
+    /**
+     * Maps the image in given path.
+     *
+     * @param path the path of the image.
+     * @throws IllegalArgumentException if the file is not an image of a BTree.
+     * @throws UncheckedIOException     if the file can't be mapped.
+     */
+    public MappedBTree(String path) {
+        try {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Image of " + channel.size() + " bytes is too large");
+            }
+            image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (image.capacity() < PAGE_SIZE || image.getInt(MAGIC_OFFSET) != MAGIC
+                || image.getInt(VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException("Not a BTree image: " + path);
+        }
+        root = image.getInt(ROOT_OFFSET);
+        keysAmount = image.getInt(KEYS_AMOUNT_OFFSET);
+    }
+
+    public int getKeysAmount() {
+        return keysAmount;
+    }
+
+    //SEARCH
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        byte[] bytes = key.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        int node = root;
+        while (true) {
+            int n = image.getInt(node);
+            boolean isLeaf = image.getInt(node + 4) != 0;
+            int keyStarts = node + NODE_HEADER_SIZE + (isLeaf ? 0 : 4 * (n + 1));
+            int low = 0;
+            int high = n;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareKey(node, keyStarts, mid, bytes) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            if (low < n && compareKey(node, keyStarts, low, bytes) == 0) {
+                return true;
+            }
+            if (isLeaf) {
+                return false;
+            }
+            node = image.getInt(node + NODE_HEADER_SIZE + 4 * low);
+        }
+    }
+
+    /**
+     * Compares a key in the image with given key, byte by byte as unsigned values.
+     *
+     * @param node      the offset of the key's node.
+     * @param keyStarts the offset of the node's key starts table.
+     * @param i         the index of the key in the node.
+     * @param key       the bytes of the key to compare with.
+     * @return a negative number, zero or a positive number if the key in the image
+     * is smaller, equal or greater than the given key.
+     */
+    private int compareKey(int node, int keyStarts, int i, byte[] key) {
+        int start = node + image.getInt(keyStarts + 4 * i);
+        int length = node + image.getInt(keyStarts + 4 * (i + 1)) - start;
+        int common = Math.min(length, key.length);
+        for (int j = 0; j < common; j++) {
+            int difference = (image.get(start + j) & 0xff) - (key[j] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Closes the image's file. The mapping itself is released once the
+     * tree is garbage collected.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //EXPORT
+
+    /**
+     * Writes an image of given tree to given path. The tree is not changed: if it has keys deleted
+     * lazily and not compacted yet, the image holds a tree bulk loaded from it's other keys.
+     *
+     * @param tree the tree to write.
+     * @param path the path of the image.
+     * @throws UncheckedIOException if the image can't be written.
+     */
+    public static void export(BTree tree, String path) {
+        //The root is taken once, so both passes and the header see the same tree even if a writer publishes a new one.
+        //The tombstones are checked before it is taken, since a compaction publishes the root before it removes them
+        BTreeNode root;
+        if (tree.getTombstonesAmount() > 0) {
+            root = new BTree(Integer.toString(tree.getT()), tree.getSortedKeys(), BULK_LOAD_FILL_FACTOR).getRoot();
+        }
+        else {
+            root = tree.getRoot();
+        }
+        IdentityHashMap<BTreeNode, Integer> offsets = new IdentityHashMap<>();
+        ArrayDeque<BTreeNode> queue = new ArrayDeque<>();
+        long offset = PAGE_SIZE;
+        int keys = 0;
+        int maxNodeSize = 0;
+        queue.addLast(root);
+        while (!queue.isEmpty()) {
+            BTreeNode node = queue.removeFirst();
+            int size = nodeSize(node);
+            if (size <= PAGE_SIZE && offset % PAGE_SIZE + size > PAGE_SIZE) {
+                offset += PAGE_SIZE - offset % PAGE_SIZE;
+            }
+            if (offset + size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The tree is too large for an image");
+            }
+            offsets.put(node, (int) offset);
+            offset += size;
+            keys += node.getN();
+            maxNodeSize = Math.max(maxNodeSize, size);
+            addChildren(node, queue);
+        }
+
+        try (FileChannel out = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putInt(ROOT_OFFSET, offsets.get(root));
+            header.putInt(KEYS_AMOUNT_OFFSET, keys);
+            writeFully(out, header, 0);
+
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(maxNodeSize, PAGE_SIZE));
+            queue.addLast(root);
+            while (!queue.isEmpty()) {
+                BTreeNode node = queue.removeFirst();
+                buffer.clear();
+                writeNode(node, offsets, buffer);
+                buffer.flip();
+                writeFully(out, buffer, offsets.get(node));
+                addChildren(node, queue);
+            }
+            // Pads the last page, so the whole image is made of full pages.
+            if (offset % PAGE_SIZE != 0) {
+                writeFully(out, ByteBuffer.allocate(1), offset + PAGE_SIZE - offset % PAGE_SIZE - 1);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void addChildren(BTreeNode node, ArrayDeque<BTreeNode> queue) {
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= node.getN(); i++) {
+                queue.addLast(node.getChild(i));
+            }
+        }
+    }
+
+    /**
+     * Calculates the size of a node in the image.
+     *
+     * @param node the node.
+     * @return the size in bytes.
+     */
+    private static int nodeSize(BTreeNode node) {
+        int n = node.getN();
+        int size = NODE_HEADER_SIZE + 4 * (n + 1) + (node.isLeaf() ? 0 : 4 * (n + 1));
+        for (int i = 0; i < n; i++) {
+            size += node.getKey(i).getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a node to given buffer in the image's node format.
+     *
+     * @param node    the node to write.
+     * @param offsets the offsets of all nodes in the image.
+     * @param buffer  the buffer to write to.
+     */
+    private static void writeNode(BTreeNode node, IdentityHashMap<BTreeNode, Integer> offsets, ByteBuffer buffer) {
+        int n = node.getN();
+        buffer.putInt(n);
+        buffer.putInt(node.isLeaf() ? 1 : 0);
+        if (!node.isLeaf()) {
+            for (int i = 0; i <= n; i++) {
+                buffer.putInt(offsets.get(node.getChild(i)));
+            }
+        }
+        int keyStarts = buffer.position();
+        int keyStart = keyStarts + 4 * (n + 1);
+        buffer.position(keyStart);
+        for (int i = 0; i < n; i++) {
+            buffer.putInt(keyStarts + 4 * i, keyStart);
+            buffer.put(node.getKey(i).getBytes(StandardCharsets.UTF_8));
+            keyStart = buffer.position();
+        }
+        buffer.putInt(keyStarts + 4 * n, keyStart);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.Random;
+
+/**
+ * Compares the in-node binary search used by BTreeNode against a linear scan
+ * of the keys array, for t values from 2 to 512.
+ * The reported times are the total time of searching all the probes, in milliseconds.
+ */
+public class NodeSearchBenchmark {
+    private static final int KEYS_AMOUNT = 200000;
+    private static final int PROBES_AMOUNT = 200000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        String[] keys = createRandomKeys(KEYS_AMOUNT, 1);
+        String[] probes = createRandomKeys(PROBES_AMOUNT, 2);
+        System.out.println("t\tlinear\tbinary");
+        for (int t = 2; t <= 512; t *= 2) {
+            BTree tree = new BTree(Integer.toString(t));
+            for (String key : keys) {
+                tree.insert(key);
+            }
+            double linear = Double.MAX_VALUE;
+            double binary = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                linear = Math.min(linear, timeSearch(tree, probes, false));
+                binary = Math.min(binary, timeSearch(tree, probes, true));
+            }
+            System.out.printf("%d\t%.3f\t%.3f%n", t, linear, binary);
+        }
+    }
+
+    /**
+     * Creates an array of random lowercase keys.
+     *
+     * @param amount the amount of keys to create.
+     * @param seed   the seed of the random generator.
+     * @return the array of keys.
+     */
+    private static String[] createRandomKeys(int amount, long seed) {
+        Random random = new Random(seed);
+        String[] keys = new String[amount];
+        for (int i = 0; i < amount; i++) {
+            char[] chars = new char[4 + random.nextInt(8)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = (char) ('a' + random.nextInt(26));
+            }
+            keys[i] = new String(chars);
+        }
+        return keys;
+    }
+
+    /**
+     * Searches all probes in the tree with one of the in-node searches. Both searches descend
+     * the same nodes and compare the same lowercase keys, so only the in-node search differs.
+     *
+     * @param tree   the tree to search in.
+     * @param probes the keys to search.
+     * @param binary whether to use the node's binary search instead of the linear scan.
+     * @return the time of the searches in milliseconds.
+     */
+    private static double timeSearch(BTree tree, String[] probes, boolean binary) {
+        int found = 0;
+        double startTime = System.nanoTime();
+        for (String probe : probes) {
+            if (search(tree.getRoot(), probe, binary)) {
+                found++;
+            }
+        }
+        double time = BenchmarkUtils.millisSince(startTime);
+        BenchmarkUtils.consume(found);
+        return time;
+    }
+
+    /**
+     * Searches for a key with the node's own binary search, or by scanning each node's
+     * keys array from the start, the way BTreeNode used to find the expected index of a key.
+     *
+     * @param node   the root of the subtree to search in.
+     * @param key    the key to search.
+     * @param binary whether to use the node's binary search.
+     * @return true if the key is in the subtree, otherwise false.
+     */
+    private static boolean search(BTreeNode node, String key, boolean binary) {
+        while (true) {
+            String[] keys = node.getKeys();
+            int n = node.getN();
+            int i;
+            if (binary) {
+                i = node.findExpectedIndexOfKey(key);
+            }
+            else {
+                i = 0;
+                while (i < n && keys[i].compareTo(key) < 0) {
+                    i++;
+                }
+            }
+            if (i < n && keys[i].equals(key)) {
+                return true;
+            }
+            if (node.isLeaf()) {
+                return false;
+            }
+            node = node.getChild(i);
+        }
+    }
+}
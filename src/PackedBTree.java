@@ -0,0 +1,168 @@
+import java.nio.charset.StandardCharsets;
+
+import static java.lang.Integer.parseInt;
+
+/**
+ * A BTree whose nodes keep their keys as packed UTF-8 bytes instead of String objects
+ * (see PackedBTreeNode). This saves the object header and the separate array of every
+ * String, and keeps the keys of a node together in memory.
+ * Keys are ordered by their UTF-8 bytes, which is the same order as BTree's
+ * for keys without supplementary characters.
+ */
+public class PackedBTree {
+
+    //FIELDS
+
+    /**
+     * The t constant of the tree.
+     */
+    private final int T_VAR;
+    /**
+     * The root of the tree.
+     */
+    private PackedBTreeNode root;
+
+    /**
+     * Constructs an empty PackedBTree.
+     *
+     * @param tVal the value of the tree's constant.
+     */
+    public PackedBTree(String tVal) {
+        T_VAR = parseInt(tVal);
+        root = new PackedBTreeNode(T_VAR);
+    }
+
+    public PackedBTreeNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Encodes a key to the bytes stored in the tree.
+     *
+     * @param key the key to encode.
+     * @return the UTF-8 bytes of the lowercase key.
+     */
+    private static byte[] encode(String key) {
+        return key.toLowerCase().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Inserts all keys from txt file in given path to the tree.
+     *
+     * @param path the path from which to read the keys.
+     */
+    public void createFullTree(String path) {
+        LinkedList<String> passwordsList = UsefulFunctions.createStringListFromFile(path);
+        if (passwordsList != null) {
+            for (String password : passwordsList) {
+                insert(password);
+            }
+        }
+    }
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        byte[] bytes = encode(key);
+        PackedBTreeNode node = root;
+        while (true) {
+            int i = node.findExpectedIndexOfKey(bytes);
+            if (node.keyEquals(i, bytes)) {
+                return true;
+            }
+            if (node.isLeaf()) {
+                return false;
+            }
+            node = node.getChild(i);
+        }
+    }
+
+    /**
+     * Receives a key and inserts it into the root and splitting the roots if it is full.
+     *
+     * @param key the key to insert to the tree.
+     */
+    public void insert(String key) {
+        byte[] bytes = encode(key);
+        if (root.getN() == 2 * T_VAR - 1) {
+            PackedBTreeNode newRoot = new PackedBTreeNode(T_VAR);
+            newRoot.setLeaf(false);
+            newRoot.setChild(0, root);
+            newRoot.splitChild(0);
+            root = newRoot;
+        }
+        PackedBTreeNode node = root;
+        while (!node.isLeaf()) {
+            int i = node.findExpectedIndexOfKey(bytes);
+            if (node.getChild(i).getN() == 2 * T_VAR - 1) {
+                node.splitChild(i);
+                // A key equal to the median goes left, like in ArrayBTree.
+                if (node.compareKey(i, bytes) < 0) {
+                    i++;
+                }
+            }
+            node = node.getChild(i);
+        }
+        node.insertKey(node.findExpectedIndexOfKey(bytes), bytes);
+    }
+
+    /**
+     * Deletes given key from the tree, making sure while climbing down the tree
+     * that every child it descends to has at least t keys.
+     *
+     * @param key the key to delete.
+     * @return true if the key was deleted, otherwise false.
+     */
+    public boolean delete(String key) {
+        byte[] bytes = encode(key);
+        boolean deleted = false;
+        PackedBTreeNode node = root;
+        while (true) {
+            int i = node.findExpectedIndexOfKey(bytes);
+            boolean keyExist = node.keyEquals(i, bytes);
+            if (node.isLeaf()) {
+                if (keyExist) { //CASE 3
+                    node.removeKey(i);
+                    deleted = true;
+                }
+                break;
+            }
+            PackedBTreeNode child = node.getChild(i);
+            if (keyExist) { //CASE 2
+                PackedBTreeNode rightChild = node.getChild(i + 1);
+                if (child.getN() >= T_VAR) {
+                    bytes = child.findMaxKey();
+                    node.replaceKey(i, bytes);
+                }
+                else if (rightChild.getN() >= T_VAR) {
+                    bytes = rightChild.findMinKey();
+                    node.replaceKey(i, bytes);
+                    child = rightChild;
+                }
+                else {
+                    node.mergeChildren(i);
+                }
+            }
+            else if (child.getN() < T_VAR) { //CASE 1
+                child = node.handleCase1(i);
+            }
+            node = child;
+        }
+        if (!root.isLeaf() && root.getN() == 0) {
+            root = root.getChild(0);
+        }
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        if (root.getN() == 0) {
+            return "";
+        }
+        return root.toString();
+    }
+}
@@ -0,0 +1,466 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A node of a PackedBTree. Instead of an array of String objects, the node keeps the UTF-8
+ * bytes of all of it's keys one after the other in a single byte array, with a table of the
+ * offsets in which every key ends. Keys are compared as unsigned bytes.
+ * <p>
+ * The keys are front coded: a prefix common to all keys of the node is kept once,
+ * and only the rest of every key is kept in the packed bytes. Since the keys of a
+ * node are sorted, the longest common prefix is the one of the first and last keys.
+ */
+public class PackedBTreeNode {
+    private static final byte[] EMPTY = new byte[0];
+
+    //FIELDS
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * The prefix all keys in the node start with.
+     */
+    private byte[] prefix;
+    /**
+     * The bytes of the keys stored in the node without the prefix, one after the other.
+     */
+    private byte[] keyBytes;
+    /**
+     * The offset in keyBytes right after the end of every key. Key i starts where key i-1 ends.
+     */
+    private final int[] keyEnds;
+    /**
+     * Array of pointers to the nodes children
+     */
+    private final PackedBTreeNode[] children;
+    /**
+     * The number of keys in node.
+     */
+    private int n;
+    private boolean isLeaf;
+
+    /**
+     * creates a new node which is a leaf, and creates the children and key arrays with the t inserted
+     *
+     * @param t the parameter of the tree
+     */
+    public PackedBTreeNode(int t) {
+        this.T_VAR = t;
+        isLeaf = true;
+        prefix = EMPTY;
+        keyBytes = EMPTY;
+        keyEnds = new int[2 * t - 1];
+        children = new PackedBTreeNode[2 * t];
+        n = 0;
+    }
+
+    // Getters and Setters
+
+    public boolean isLeaf() {
+        return isLeaf;
+    }
+
+    public void setLeaf(boolean leaf) {
+        isLeaf = leaf;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    /**
+     * outputs the node in a specified index
+     *
+     * @param i index in the children array
+     * @return the node located in this index
+     */
+    public PackedBTreeNode getChild(int i) {
+        if (i < 0 || i > n) {
+            throw new IllegalArgumentException("Index: " + i + "," + " n: " + n);
+        }
+        return children[i];
+    }
+
+    public void setChild(int i, PackedBTreeNode node) {
+        children[i] = node;
+    }
+
+    //KEYS
+
+    private int keyStart(int i) {
+        return i == 0 ? 0 : keyEnds[i - 1];
+    }
+
+    /**
+     * Gets the key in given index.
+     *
+     * @param i the index of the key.
+     * @return a String with the key.
+     */
+    public String getKey(int i) {
+        if (i < 0 || i >= n) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + n);
+        }
+        return new String(getKeyBytes(i), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets a copy of the bytes of the key in given index.
+     *
+     * @param i the index of the key.
+     * @return the key's bytes.
+     */
+    public byte[] getKeyBytes(int i) {
+        int start = keyStart(i);
+        byte[] key = Arrays.copyOf(prefix, prefix.length + keyEnds[i] - start);
+        System.arraycopy(keyBytes, start, key, prefix.length, keyEnds[i] - start);
+        return key;
+    }
+
+    /**
+     * Compares the prefix of this node with the start of given key.
+     *
+     * @param key the bytes of the key to compare with.
+     * @return zero if the key starts with the prefix, otherwise a negative number or a positive
+     * number if all the keys in the node are smaller or greater than the given key.
+     */
+    private int comparePrefix(byte[] key) {
+        int length = Math.min(prefix.length, key.length);
+        int compare = Arrays.compareUnsigned(prefix, 0, length, key, 0, length);
+        if (compare == 0 && key.length < prefix.length) {
+            return 1;
+        }
+        return compare;
+    }
+
+    /**
+     * Compares the rest of the key in given index with the rest of given key after the prefix.
+     */
+    private int compareSuffix(int i, byte[] key) {
+        return Arrays.compareUnsigned(keyBytes, keyStart(i), keyEnds[i], key, prefix.length, key.length);
+    }
+
+    /**
+     * Compares the key in given index with given key, byte by byte as unsigned values.
+     *
+     * @param i   the index of the key in the node.
+     * @param key the bytes of the key to compare with.
+     * @return a negative number, zero or a positive number if the key in the node
+     * is smaller, equal or greater than the given key.
+     */
+    public int compareKey(int i, byte[] key) {
+        int compare = comparePrefix(key);
+        return compare != 0 ? compare : compareSuffix(i, key);
+    }
+
+    /**
+     * Finds the index of the first key in this node that is not smaller than given key.
+     *
+     * @param key the bytes of the key this searches for.
+     * @return the index of key, or the one it would have if it was in the node.
+     */
+    public int findExpectedIndexOfKey(byte[] key) {
+        int compare = comparePrefix(key);
+        if (compare != 0) {
+            return compare > 0 ? 0 : n;
+        }
+        int low = 0;
+        int high = n;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSuffix(mid, key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks if the key in given index equals given key.
+     */
+    boolean keyEquals(int i, byte[] key) {
+        return i < n && compareKey(i, key) == 0;
+    }
+
+    /**
+     * Inserts a key to given index of the keys, moving the keys after it one place right.
+     *
+     * @param i   the index of the new key.
+     * @param key the bytes of the key.
+     */
+    void insertKey(int i, byte[] key) {
+        if (n == 0) {
+            prefix = key.clone();
+            keyBytes = EMPTY;
+        }
+        else {
+            int common = commonPrefixLength(prefix, prefix.length, key, key.length);
+            if (common < prefix.length) {
+                changePrefix(common);
+            }
+        }
+        insertSuffix(i, key, prefix.length, key.length - prefix.length);
+    }
+
+    /**
+     * Inserts a range of given bytes as the rest of a key after the prefix, to given index of the keys.
+     */
+    private void insertSuffix(int i, byte[] source, int from, int length) {
+        int used = n == 0 ? 0 : keyEnds[n - 1];
+        if (used + length > keyBytes.length) {
+            keyBytes = Arrays.copyOf(keyBytes, Math.max(used + length, keyBytes.length + (keyBytes.length >> 1)));
+        }
+        int start = keyStart(i);
+        System.arraycopy(keyBytes, start, keyBytes, start + length, used - start);
+        System.arraycopy(source, from, keyBytes, start, length);
+        for (int j = n; j > i; j--) {
+            keyEnds[j] = keyEnds[j - 1] + length;
+        }
+        keyEnds[i] = start + length;
+        n++;
+    }
+
+    /**
+     * Removes the key in given index, moving the keys after it one place left.
+     *
+     * @param i the index of the key to remove.
+     */
+    void removeKey(int i) {
+        int start = keyStart(i);
+        int length = keyEnds[i] - start;
+        int used = keyEnds[n - 1];
+        System.arraycopy(keyBytes, keyEnds[i], keyBytes, start, used - keyEnds[i]);
+        for (int j = i; j < n - 1; j++) {
+            keyEnds[j] = keyEnds[j + 1] - length;
+        }
+        n--;
+    }
+
+    /**
+     * Replaces the key in given index with given key.
+     */
+    void replaceKey(int i, byte[] key) {
+        removeKey(i);
+        insertKey(i, key);
+    }
+
+    /**
+     * Appends keys of another node to the end of this node's keys.
+     *
+     * @param source the node to copy the keys from.
+     * @param from   the index of the first key to copy.
+     * @param count  the amount of keys to copy.
+     */
+    private void appendKeys(PackedBTreeNode source, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            insertKey(n, source.getKeyBytes(i));
+        }
+    }
+
+    /**
+     * Removes all keys from given index to the end, and shrinks the bytes array to fit the rest.
+     */
+    private void truncateKeys(int from) {
+        n = from;
+        keyBytes = Arrays.copyOf(keyBytes, keyStart(from));
+        extendPrefix();
+    }
+
+    //FRONT CODING
+
+    /**
+     * Calculates the length of the longest common prefix of two byte ranges starting at 0.
+     */
+    private static int commonPrefixLength(byte[] first, int firstLength, byte[] second, int secondLength) {
+        int mismatch = Arrays.mismatch(first, 0, firstLength, second, 0, secondLength);
+        return mismatch == -1 ? firstLength : mismatch;
+    }
+
+    /**
+     * Extends the prefix to the longest one common to all keys, which may have grown
+     * after keys were removed.
+     */
+    private void extendPrefix() {
+        if (n == 0) {
+            return;
+        }
+        byte[] first = getKeyBytes(0);
+        byte[] last = getKeyBytes(n - 1);
+        int common = commonPrefixLength(first, first.length, last, last.length);
+        if (common > prefix.length) {
+            changePrefix(common);
+        }
+    }
+
+    /**
+     * Changes the length of the prefix, moving bytes between the prefix and the keys.
+     *
+     * @param length the new length of the prefix, which must be common to all the keys.
+     */
+    private void changePrefix(int length) {
+        byte[] first = getKeyBytes(0);
+        int difference = prefix.length - length;
+        byte[] newKeyBytes = new byte[keyEnds[n - 1] + n * difference];
+        int start = 0;
+        int end = 0;
+        for (int i = 0; i < n; i++) {
+            int oldEnd = keyEnds[i];
+            if (difference >= 0) {
+                System.arraycopy(prefix, length, newKeyBytes, end, difference);
+                end += difference;
+                System.arraycopy(keyBytes, start, newKeyBytes, end, oldEnd - start);
+                end += oldEnd - start;
+            }
+            else {
+                System.arraycopy(keyBytes, start - difference, newKeyBytes, end, oldEnd - start + difference);
+                end += oldEnd - start + difference;
+            }
+            keyEnds[i] = end;
+            start = oldEnd;
+        }
+        keyBytes = newKeyBytes;
+        prefix = Arrays.copyOf(first, length);
+    }
+
+    //INSERT
+
+    /**
+     * Splits the full child in given index to 2 children, and puts the middle key
+     * of the child between the 2 pointers to the new children.
+     *
+     * @param index the index of the child to split.
+     */
+    void splitChild(int index) {
+        PackedBTreeNode splitChild = children[index];
+        PackedBTreeNode newChild = new PackedBTreeNode(T_VAR);
+        newChild.isLeaf = splitChild.isLeaf;
+        newChild.appendKeys(splitChild, T_VAR, T_VAR - 1);
+        if (!splitChild.isLeaf) {
+            System.arraycopy(splitChild.children, T_VAR, newChild.children, 0, T_VAR);
+            Arrays.fill(splitChild.children, T_VAR, 2 * T_VAR, null);
+        }
+        insertKey(index, splitChild.getKeyBytes(T_VAR - 1));
+        System.arraycopy(children, index + 1, children, index + 2, n - index - 1);
+        children[index + 1] = newChild;
+        splitChild.truncateKeys(T_VAR - 1);
+    }
+
+    //DELETE
+
+    /**
+     * Makes sure the child in given index, which has t-1 keys, gets another key:
+     * takes one through this node from a sibling with at least t keys, the right one first (case 1a),
+     * or merges the child with a sibling, the right one first (case 1b), like ArrayBTreeNode does.
+     *
+     * @param index the index of the child.
+     * @return the node that now holds the child's keys.
+     */
+    PackedBTreeNode handleCase1(int index) {
+        PackedBTreeNode child = children[index];
+        if (index < n && children[index + 1].n >= T_VAR) {
+            PackedBTreeNode right = children[index + 1];
+            child.insertKey(child.n, getKeyBytes(index));
+            if (!child.isLeaf) {
+                child.children[child.n] = right.children[0];
+                System.arraycopy(right.children, 1, right.children, 0, right.n);
+                right.children[right.n] = null;
+            }
+            replaceKey(index, right.getKeyBytes(0));
+            right.removeKey(0);
+            right.extendPrefix();
+            return child;
+        }
+        if (index > 0 && children[index - 1].n >= T_VAR) {
+            PackedBTreeNode left = children[index - 1];
+            child.insertKey(0, getKeyBytes(index - 1));
+            if (!child.isLeaf) {
+                System.arraycopy(child.children, 0, child.children, 1, child.n);
+                child.children[0] = left.children[left.n];
+                left.children[left.n] = null;
+            }
+            replaceKey(index - 1, left.getKeyBytes(left.n - 1));
+            left.removeKey(left.n - 1);
+            left.extendPrefix();
+            return child;
+        }
+        if (index < n) {
+            mergeChildren(index);
+            return child;
+        }
+        mergeChildren(index - 1);
+        return children[index - 1];
+    }
+
+    /**
+     * Merges the child in given index with the child to it's right, in place of the left
+     * one, with the key between them as the median.
+     *
+     * @param index the index of the left child.
+     */
+    void mergeChildren(int index) {
+        PackedBTreeNode left = children[index];
+        PackedBTreeNode right = children[index + 1];
+        int leftN = left.n;
+        left.insertKey(leftN, getKeyBytes(index));
+        left.appendKeys(right, 0, right.n);
+        if (!left.isLeaf) {
+            System.arraycopy(right.children, 0, left.children, leftN + 1, right.n + 1);
+        }
+        removeKey(index);
+        System.arraycopy(children, index + 2, children, index + 1, n - index);
+        children[n + 1] = null;
+    }
+
+    /**
+     * Finds the max key in the subtree of this node.
+     */
+    byte[] findMaxKey() {
+        PackedBTreeNode current = this;
+        while (!current.isLeaf) {
+            current = current.children[current.n];
+        }
+        return current.getKeyBytes(current.n - 1);
+    }
+
+    /**
+     * Finds the min key in the subtree of this node.
+     */
+    byte[] findMinKey() {
+        PackedBTreeNode current = this;
+        while (!current.isLeaf) {
+            current = current.children[0];
+        }
+        return current.getKeyBytes(0);
+    }
+
+    //toString
+    @Override
+    public String toString() {
+        String toString = toString(new StringBuilder(), 0).toString();
+        return toString.substring(0, toString.length() - 1);
+    }
+
+    /**
+     * Sub method of toString that builds the string representation
+     * of the subtree recursively.
+     *
+     * @param sb    an accumulator that collects the subtree's toStrings
+     * @param depth the depth of the current subtree.
+     * @return a string visually representing the subtree.
+     */
+    private StringBuilder toString(StringBuilder sb, int depth) {
+        for (int i = 0; i <= getN(); i++) {
+            if (!isLeaf()) {
+                sb = getChild(i).toString(sb, depth + 1);
+            }
+            if (i < getN()) {
+                sb.append(getKey(i)).append("_").append(depth).append(",");
+            }
+        }
+        return sb;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * A frame of the buffer pool, holding the bytes of a single page of the file.
+ */
+public class PageFrame {
+    /**
+     * The id of the page held in the frame.
+     */
+    private final int pageId;
+    /**
+     * The bytes of the page.
+     */
+    private final byte[] data;
+    /**
+     * The amount of users currently holding the frame. A pinned frame is never evicted.
+     */
+    private int pinCount;
+    /**
+     * Whether the page was changed since it was read from or written to the file.
+     */
+    private boolean dirty;
+
+    /**
+     * Constructs a frame for given page.
+     *
+     * @param pageId   the id of the page.
+     * @param pageSize the size of a page in bytes.
+     */
+    public PageFrame(int pageId, int pageSize) {
+        this.pageId = pageId;
+        this.data = new byte[pageSize];
+    }
+
+    public int getPageId() {
+        return pageId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getPinCount() {
+        return pinCount;
+    }
+
+    public void setPinCount(int pinCount) {
+        this.pinCount = pinCount;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+}
@@ -0,0 +1,534 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A BTree stored in a file, in which every node is a fixed size page.
+ * Nodes are read and written through a BufferPool, so only a bounded amount of pages
+ * is held in memory. The t of the tree is the largest one for which a node with keys
+ * of up to maxKeyBytes UTF-8 bytes fits in a page. Keys are ordered by their UTF-8 bytes.
+ * <p>
+ * Page 0 holds the tree's metadata. Pages freed by merges are kept in a free list
+ * and reused by later splits.
+ */
+public class PagedBTree implements Closeable {
+    /**
+     * Identifies a file of a PagedBTree.
+     */
+    private static final int MAGIC = 0x42545245;
+    private static final int META_PAGE = 0;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int PAGE_SIZE_OFFSET = 4;
+    private static final int MAX_KEY_BYTES_OFFSET = 8;
+    private static final int ROOT_OFFSET = 12;
+    private static final int PAGE_COUNT_OFFSET = 16;
+    private static final int FREE_HEAD_OFFSET = 20;
+    /**
+     * The least amount of frames the operations need pinned at the same time.
+     */
+    private static final int MIN_POOL_PAGES = 8;
+
+    //FIELDS
+
+    /**
+     * The t constant of the tree.
+     */
+    private final int T_VAR;
+    private final int maxKeyBytes;
+    private final FileChannel channel;
+    private final BufferPool pool;
+    /**
+     * The page id of the root.
+     */
+    private int rootId;
+    /**
+     * The amount of pages in the file, including freed pages.
+     */
+    private int pageCount;
+    /**
+     * The id of the first freed page, or 0 if there are none.
+     */
+    private int freeHead;
+
+    /**
+     * Opens the tree in given file, or creates an empty tree if the file doesn't exist or is empty.
+     *
+     * @param path        the path of the tree's file.
+     * @param pageSize    the size of a page in bytes.
+     * @param maxKeyBytes the maximal length of a key in UTF-8 bytes.
+     * @param poolPages   the amount of pages the buffer pool holds in memory.
+     * @throws IllegalArgumentException if a page can't hold a node with t of at least 2,
+     *                                  or the file was created with a different page size or key length.
+     * @throws UncheckedIOException     if the file can't be opened.
+     */
+    public PagedBTree(String path, int pageSize, int maxKeyBytes, int poolPages) {
+        if (maxKeyBytes < 1 || maxKeyBytes > 0xffff) {
+            throw new IllegalArgumentException("Max key bytes: " + maxKeyBytes);
+        }
+        if (poolPages < MIN_POOL_PAGES) {
+            throw new IllegalArgumentException("Pool pages: " + poolPages);
+        }
+        T_VAR = PagedBTreeNode.calculateT(pageSize, maxKeyBytes);
+        if (T_VAR < 2) {
+            throw new IllegalArgumentException("Page size " + pageSize + " is too small for keys of " + maxKeyBytes + " bytes");
+        }
+        this.maxKeyBytes = maxKeyBytes;
+        Path file = Paths.get(path);
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            pool = new BufferPool(channel, pageSize, poolPages);
+            if (channel.size() == 0) {
+                createEmptyTree();
+            }
+            else {
+                readMeta(pageSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getT() {
+        return T_VAR;
+    }
+
+    //META
+
+    private void createEmptyTree() {
+        pageCount = 1;
+        freeHead = 0;
+        PagedBTreeNode root = allocate();
+        root.setLeaf(true);
+        root.setN(0);
+        rootId = root.getPageId();
+        root.release();
+        writeMeta();
+    }
+
+    private void readMeta(int pageSize) {
+        PageFrame frame = pool.pin(META_PAGE);
+        byte[] data = frame.getData();
+        try {
+            if (PagedBTreeNode.getInt(data, MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalArgumentException("Not a PagedBTree file");
+            }
+            if (PagedBTreeNode.getInt(data, PAGE_SIZE_OFFSET) != pageSize
+                    || PagedBTreeNode.getInt(data, MAX_KEY_BYTES_OFFSET) != maxKeyBytes) {
+                throw new IllegalArgumentException("The file was created with a different page size or key length");
+            }
+            rootId = PagedBTreeNode.getInt(data, ROOT_OFFSET);
+            pageCount = PagedBTreeNode.getInt(data, PAGE_COUNT_OFFSET);
+            freeHead = PagedBTreeNode.getInt(data, FREE_HEAD_OFFSET);
+        } finally {
+            pool.unpin(frame, false);
+        }
+    }
+
+    private void writeMeta() {
+        PageFrame frame = pool.pin(META_PAGE);
+        byte[] data = frame.getData();
+        PagedBTreeNode.putInt(data, MAGIC_OFFSET, MAGIC);
+        PagedBTreeNode.putInt(data, PAGE_SIZE_OFFSET, pool.getPageSize());
+        PagedBTreeNode.putInt(data, MAX_KEY_BYTES_OFFSET, maxKeyBytes);
+        PagedBTreeNode.putInt(data, ROOT_OFFSET, rootId);
+        PagedBTreeNode.putInt(data, PAGE_COUNT_OFFSET, pageCount);
+        PagedBTreeNode.putInt(data, FREE_HEAD_OFFSET, freeHead);
+        pool.unpin(frame, true);
+    }
+
+    //PAGES
+
+    /**
+     * Pins the page of given node.
+     *
+     * @param pageId the id of the node's page.
+     * @return the pinned node.
+     */
+    private PagedBTreeNode pin(int pageId) {
+        return new PagedBTreeNode(pool, pool.pin(pageId), T_VAR, maxKeyBytes);
+    }
+
+    /**
+     * Pins a new page for a node, reusing a freed page if there is one.
+     *
+     * @return the pinned new node.
+     */
+    private PagedBTreeNode allocate() {
+        int pageId;
+        if (freeHead != 0) {
+            pageId = freeHead;
+            PageFrame frame = pool.pin(pageId);
+            freeHead = PagedBTreeNode.getInt(frame.getData(), 0);
+            pool.unpin(frame, false);
+        }
+        else {
+            pageId = pageCount;
+            pageCount++;
+        }
+        return pin(pageId);
+    }
+
+    /**
+     * Adds the page of given node to the free list and unpins it.
+     *
+     * @param node the node to free.
+     */
+    private void free(PagedBTreeNode node) {
+        int pageId = node.getPageId();
+        node.release();
+        PageFrame frame = pool.pin(pageId);
+        PagedBTreeNode.putInt(frame.getData(), 0, freeHead);
+        pool.unpin(frame, true);
+        freeHead = pageId;
+    }
+
+    /**
+     * Encodes a key to the bytes stored in the tree.
+     *
+     * @param key the key to encode.
+     * @return the UTF-8 bytes of the lowercase key.
+     * @throws IllegalArgumentException if the key is longer than maxKeyBytes.
+     */
+    private byte[] encode(String key) {
+        byte[] bytes = key.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxKeyBytes) {
+            throw new IllegalArgumentException("Key of " + bytes.length + " bytes, max: " + maxKeyBytes);
+        }
+        return bytes;
+    }
+
+    //SEARCH
+
+    /**
+     * Checks if a given key is in the tree.
+     *
+     * @param key the key to search.
+     * @return true if the key is in the tree, otherwise false.
+     */
+    public boolean contains(String key) {
+        byte[] bytes = encode(key);
+        PagedBTreeNode node = pin(rootId);
+        while (true) {
+            int i = node.findExpectedIndexOfKey(bytes);
+            if (i < node.getN() && node.compareKey(i, bytes) == 0) {
+                node.release();
+                return true;
+            }
+            if (node.isLeaf()) {
+                node.release();
+                return false;
+            }
+            int childId = node.getChild(i);
+            node.release();
+            node = pin(childId);
+        }
+    }
+
+    //INSERT
+
+    /**
+     * Receives a key and inserts it into the root and splitting the roots if it is full.
+     *
+     * @param key the key to insert to the tree.
+     */
+    public void insert(String key) {
+        byte[] bytes = encode(key);
+        PagedBTreeNode node = pin(rootId);
+        if (node.getN() == 2 * T_VAR - 1) {
+            PagedBTreeNode newRoot = allocate();
+            newRoot.setLeaf(false);
+            newRoot.setN(0);
+            newRoot.setChild(0, rootId);
+            splitChild(newRoot, 0, node);
+            node.release();
+            node = newRoot;
+            rootId = newRoot.getPageId();
+            writeMeta();
+        }
+        while (!node.isLeaf()) {
+            int i = node.findExpectedIndexOfKey(bytes);
+            PagedBTreeNode child = pin(node.getChild(i));
+            if (child.getN() == 2 * T_VAR - 1) {
+                splitChild(node, i, child);
+                // A key equal to the median goes left, like in ArrayBTree.
+                if (node.compareKey(i, bytes) < 0) {
+                    child.release();
+                    child = pin(node.getChild(i + 1));
+                }
+            }
+            node.release();
+            node = child;
+        }
+        int i = node.findExpectedIndexOfKey(bytes);
+        node.copyKeys(node, i, i + 1, node.getN() - i);
+        node.setKey(i, bytes);
+        node.setN(node.getN() + 1);
+        node.release();
+    }
+
+    /**
+     * Splits the full child in given index of the father to 2 children, and puts the
+     * middle key of the child between the 2 pointers to the new children.
+     *
+     * @param father the father of the child.
+     * @param index  the index of the child to split.
+     * @param child  the pinned child.
+     */
+    private void splitChild(PagedBTreeNode father, int index, PagedBTreeNode child) {
+        PagedBTreeNode newChild = allocate();
+        newChild.setLeaf(child.isLeaf());
+        newChild.copyKeys(child, T_VAR, 0, T_VAR - 1);
+        if (!child.isLeaf()) {
+            newChild.copyChildren(child, T_VAR, 0, T_VAR);
+        }
+        newChild.setN(T_VAR - 1);
+
+        int n = father.getN();
+        father.copyKeys(father, index, index + 1, n - index);
+        father.copyChildren(father, index + 1, index + 2, n - index);
+        father.copyKeys(child, T_VAR - 1, index, 1);
+        father.setChild(index + 1, newChild.getPageId());
+        father.setN(n + 1);
+        child.setN(T_VAR - 1);
+        newChild.release();
+    }
+
+    //DELETE
+
+    /**
+     * Deletes given key from the tree, if it is in the tree.
+     *
+     * @param key the key to delete.
+     * @return true if the key was deleted, otherwise false.
+     */
+    public boolean delete(String key) {
+        byte[] bytes = encode(key);
+        boolean deleted = delete(pin(rootId), bytes);
+        PagedBTreeNode root = pin(rootId);
+        if (!root.isLeaf() && root.getN() == 0) {
+            rootId = root.getChild(0);
+            free(root);
+            writeMeta();
+        }
+        else {
+            root.release();
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes given key from the subtree of given node, and while climbing down the tree
+     * makes sure that every child it descends to has at least t keys.
+     *
+     * @param node the pinned node, released by this method.
+     * @param key  the bytes of the key to delete.
+     * @return true if the key was deleted, otherwise false.
+     */
+    private boolean delete(PagedBTreeNode node, byte[] key) {
+        while (true) {
+            int i = node.findExpectedIndexOfKey(key);
+            boolean keyExist = i < node.getN() && node.compareKey(i, key) == 0;
+            if (node.isLeaf()) {
+                if (keyExist) { //CASE 3
+                    node.copyKeys(node, i + 1, i, node.getN() - i - 1);
+                    node.setN(node.getN() - 1);
+                }
+                node.release();
+                return keyExist;
+            }
+            PagedBTreeNode child = pin(node.getChild(i));
+            if (keyExist) { //CASE 2
+                if (child.getN() >= T_VAR) {
+                    byte[] max = findMaxKey(child);
+                    node.setKey(i, max);
+                    key = max;
+                }
+                else {
+                    PagedBTreeNode rightChild = pin(node.getChild(i + 1));
+                    if (rightChild.getN() >= T_VAR) {
+                        byte[] min = findMinKey(rightChild);
+                        node.setKey(i, min);
+                        key = min;
+                        child.release();
+                        child = rightChild;
+                    }
+                    else {
+                        merge(node, i, child, rightChild);
+                    }
+                }
+            }
+            else if (child.getN() < T_VAR) { //CASE 1
+                child = handleCase1(node, i, child);
+            }
+            node.release();
+            node = child;
+        }
+    }
+
+    /**
+     * Makes sure the child in given index, which has t-1 keys, gets another key:
+     * takes one through the father from a sibling with at least t keys, the right one first (case 1a),
+     * or merges the child with a sibling, the right one first (case 1b), like ArrayBTreeNode does.
+     *
+     * @param father the father of the child.
+     * @param index  the index of the child.
+     * @param child  the pinned child.
+     * @return the pinned node that now holds the child's keys.
+     */
+    private PagedBTreeNode handleCase1(PagedBTreeNode father, int index, PagedBTreeNode child) {
+        PagedBTreeNode right = index < father.getN() ? pin(father.getChild(index + 1)) : null;
+        if (right != null && right.getN() >= T_VAR) {
+            moveFromRight(father, index, child, right);
+            right.release();
+            return child;
+        }
+        PagedBTreeNode left = index > 0 ? pin(father.getChild(index - 1)) : null;
+        if (left != null && left.getN() >= T_VAR) {
+            moveFromLeft(father, index, left, child);
+            left.release();
+            if (right != null) {
+                right.release();
+            }
+            return child;
+        }
+        if (right != null) {
+            merge(father, index, child, right);
+            if (left != null) {
+                left.release();
+            }
+            return child;
+        }
+        merge(father, index - 1, left, child);
+        return left;
+    }
+
+    /**
+     * Moves the key before the child in the father to the start of the child,
+     * and the last key of the left sibling to the father.
+     */
+    private void moveFromLeft(PagedBTreeNode father, int index, PagedBTreeNode left, PagedBTreeNode child) {
+        int n = child.getN();
+        child.copyKeys(child, 0, 1, n);
+        child.copyKeys(father, index - 1, 0, 1);
+        if (!child.isLeaf()) {
+            child.copyChildren(child, 0, 1, n + 1);
+            child.setChild(0, left.getChild(left.getN()));
+        }
+        child.setN(n + 1);
+        father.copyKeys(left, left.getN() - 1, index - 1, 1);
+        left.setN(left.getN() - 1);
+    }
+
+    /**
+     * Moves the key after the child in the father to the end of the child,
+     * and the first key of the right sibling to the father.
+     */
+    private void moveFromRight(PagedBTreeNode father, int index, PagedBTreeNode child, PagedBTreeNode right) {
+        int n = child.getN();
+        child.copyKeys(father, index, n, 1);
+        if (!child.isLeaf()) {
+            child.setChild(n + 1, right.getChild(0));
+            right.copyChildren(right, 1, 0, right.getN());
+        }
+        child.setN(n + 1);
+        father.copyKeys(right, 0, index, 1);
+        right.copyKeys(right, 1, 0, right.getN() - 1);
+        right.setN(right.getN() - 1);
+    }
+
+    /**
+     * Merges the right node into the left one in place, with the key between them in
+     * the father as the median, removes the key and the right child from the father,
+     * and frees the right node's page.
+     *
+     * @param father the father of the nodes.
+     * @param index  the index of the left node.
+     * @param left   the pinned left node, which stays pinned.
+     * @param right  the pinned right node, which is freed.
+     */
+    private void merge(PagedBTreeNode father, int index, PagedBTreeNode left, PagedBTreeNode right) {
+        int n = left.getN();
+        left.copyKeys(father, index, n, 1);
+        left.copyKeys(right, 0, n + 1, right.getN());
+        if (!left.isLeaf()) {
+            left.copyChildren(right, 0, n + 1, right.getN() + 1);
+        }
+        left.setN(n + 1 + right.getN());
+
+        int fatherN = father.getN();
+        father.copyKeys(father, index + 1, index, fatherN - index - 1);
+        father.copyChildren(father, index + 2, index + 1, fatherN - index - 1);
+        father.setN(fatherN - 1);
+        free(right);
+    }
+
+    /**
+     * Finds the max key in the subtree of a node.
+     *
+     * @param node the pinned node, which stays pinned.
+     * @return the bytes of the max key.
+     */
+    private byte[] findMaxKey(PagedBTreeNode node) {
+        if (node.isLeaf()) {
+            return node.getKeyBytes(node.getN() - 1);
+        }
+        PagedBTreeNode current = pin(node.getChild(node.getN()));
+        while (!current.isLeaf()) {
+            int next = current.getChild(current.getN());
+            current.release();
+            current = pin(next);
+        }
+        byte[] max = current.getKeyBytes(current.getN() - 1);
+        current.release();
+        return max;
+    }
+
+    /**
+     * Finds the min key in the subtree of a node.
+     *
+     * @param node the pinned node, which stays pinned.
+     * @return the bytes of the min key.
+     */
+    private byte[] findMinKey(PagedBTreeNode node) {
+        if (node.isLeaf()) {
+            return node.getKeyBytes(0);
+        }
+        PagedBTreeNode current = pin(node.getChild(0));
+        while (!current.isLeaf()) {
+            int next = current.getChild(0);
+            current.release();
+            current = pin(next);
+        }
+        byte[] min = current.getKeyBytes(0);
+        current.release();
+        return min;
+    }
+
+    //FLUSH AND CLOSE
+
+    /**
+     * Writes all changed pages to the file.
+     */
+    public void flush() {
+        writeMeta();
+        pool.flush();
+    }
+
+    /**
+     * Flushes the tree and closes it's file.
+     */
+    @Override
+    public void close() {
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A node of a PagedBTree, read and written in place in the bytes of a pinned page.
+ * The page holds a header with the leaf flag and the amount of keys, then 2t-1 key slots of
+ * a 2 bytes length and up to maxKeyBytes UTF-8 bytes each, then 2t child page ids.
+ */
+public class PagedBTreeNode {
+    /**
+     * The offset of the leaf flag in the page.
+     */
+    private static final int LEAF_OFFSET = 0;
+    /**
+     * The offset of the amount of keys in the page.
+     */
+    private static final int N_OFFSET = 4;
+    /**
+     * The size of the header preceding the keys.
+     */
+    private static final int HEADER_SIZE = 8;
+
+    private final BufferPool pool;
+    private final PageFrame frame;
+    private final byte[] data;
+    /**
+     * The tree's constant.
+     */
+    private final int T_VAR;
+    /**
+     * The size in bytes of a key slot.
+     */
+    private final int slotSize;
+    /**
+     * Whether the node was changed since it was pinned.
+     */
+    private boolean changed;
+
+    /**
+     * Constructs a view of a node in given pinned frame.
+     *
+     * @param pool        the buffer pool the frame was pinned from.
+     * @param frame       the pinned frame of the node's page.
+     * @param t           the tree's constant.
+     * @param maxKeyBytes the maximal length of a key in bytes.
+     */
+    public PagedBTreeNode(BufferPool pool, PageFrame frame, int t, int maxKeyBytes) {
+        this.pool = pool;
+        this.frame = frame;
+        this.data = frame.getData();
+        this.T_VAR = t;
+        this.slotSize = 2 + maxKeyBytes;
+    }
+
+    /**
+     * Calculates the largest t for which a node fits in a page.
+     *
+     * @param pageSize    the size of a page in bytes.
+     * @param maxKeyBytes the maximal length of a key in bytes.
+     * @return the t of the tree.
+     */
+    public static int calculateT(int pageSize, int maxKeyBytes) {
+        int slotSize = 2 + maxKeyBytes;
+        // (2t - 1) key slots and 2t child ids must fit after the header.
+        return (pageSize - HEADER_SIZE + slotSize) / (2 * slotSize + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Unpins the node's page, marking it dirty if the node was changed.
+     */
+    public void release() {
+        pool.unpin(frame, changed);
+    }
+
+    public int getPageId() {
+        return frame.getPageId();
+    }
+
+    public boolean isLeaf() {
+        return data[LEAF_OFFSET] != 0;
+    }
+
+    public void setLeaf(boolean leaf) {
+        data[LEAF_OFFSET] = (byte) (leaf ? 1 : 0);
+        changed = true;
+    }
+
+    public int getN() {
+        return getInt(data, N_OFFSET);
+    }
+
+    public void setN(int n) {
+        putInt(data, N_OFFSET, n);
+        changed = true;
+    }
+
+    //KEYS
+
+    private int keyOffset(int i) {
+        return HEADER_SIZE + i * slotSize;
+    }
+
+    private int childOffset(int i) {
+        return HEADER_SIZE + (2 * T_VAR - 1) * slotSize + i * Integer.BYTES;
+    }
+
+    /**
+     * Gets the bytes of the key in given index.
+     *
+     * @param i the index of the key.
+     * @return a copy of the key's bytes.
+     */
+    public byte[] getKeyBytes(int i) {
+        int offset = keyOffset(i);
+        int length = getShort(data, offset);
+        byte[] key = new byte[length];
+        System.arraycopy(data, offset + 2, key, 0, length);
+        return key;
+    }
+
+    /**
+     * Gets the key in given index.
+     *
+     * @param i the index of the key.
+     * @return a String with the key.
+     */
+    public String getKey(int i) {
+        if (i < 0 || i >= getN()) {
+            throw new IllegalArgumentException("Index: " + i + " n: " + getN());
+        }
+        int offset = keyOffset(i);
+        return new String(data, offset + 2, getShort(data, offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sets the key in given index.
+     *
+     * @param i   the index of the key.
+     * @param key the bytes of the key.
+     */
+    public void setKey(int i, byte[] key) {
+        int offset = keyOffset(i);
+        putShort(data, offset, key.length);
+        System.arraycopy(key, 0, data, offset + 2, key.length);
+        changed = true;
+    }
+
+    /**
+     * Compares the key in given index with given key, byte by byte as unsigned values.
+     *
+     * @param i   the index of the key in the node.
+     * @param key the bytes of the key to compare with.
+     * @return a negative number, zero or a positive number if the key in the node
+     * is smaller, equal or greater than the given key.
+     */
+    public int compareKey(int i, byte[] key) {
+        int offset = keyOffset(i);
+        int length = getShort(data, offset);
+        int common = Math.min(length, key.length);
+        for (int j = 0; j < common; j++) {
+            int difference = (data[offset + 2 + j] & 0xff) - (key[j] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Finds the index of the first key in this node that is not smaller than given key.
+     *
+     * @param key the bytes of the key this searches for.
+     * @return the index of key, or the one it would have if it was in the node.
+     */
+    public int findExpectedIndexOfKey(byte[] key) {
+        int low = 0;
+        int high = getN();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Copies a range of key slots from given node to this node. The ranges may overlap
+     * if the nodes are the same.
+     *
+     * @param source     the node to copy the keys from.
+     * @param sourceFrom the index of the first key to copy.
+     * @param from       the index in this node to copy the first key to.
+     * @param count      the amount of keys to copy.
+     */
+    public void copyKeys(PagedBTreeNode source, int sourceFrom, int from, int count) {
+        System.arraycopy(source.data, source.keyOffset(sourceFrom), data, keyOffset(from), count * slotSize);
+        changed = true;
+    }
+
+    //CHILDREN
+
+    public int getChild(int i) {
+        return getInt(data, childOffset(i));
+    }
+
+    public void setChild(int i, int pageId) {
+        putInt(data, childOffset(i), pageId);
+        changed = true;
+    }
+
+    /**
+     * Copies a range of child ids from given node to this node. The ranges may overlap
+     * if the nodes are the same.
+     *
+     * @param source     the node to copy the children from.
+     * @param sourceFrom the index of the first child to copy.
+     * @param from       the index in this node to copy the first child to.
+     * @param count      the amount of children to copy.
+     */
+    public void copyChildren(PagedBTreeNode source, int sourceFrom, int from, int count) {
+        System.arraycopy(source.data, source.childOffset(sourceFrom), data, childOffset(from), count * Integer.BYTES);
+        changed = true;
+    }
+
+    //BYTES
+
+    static int getInt(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
+                | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+    static void putInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private static int getShort(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    private static void putShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 8);
+        data[offset + 1] = (byte) value;
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join task that searches a range of keys in a BTree that is not changed during
+ * the search. Ranges larger than a threshold are split in half and searched in parallel.
+ */
+public class ParallelSearchTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The largest amount of keys a task searches by itself without splitting.
+     */
+    private static final int THRESHOLD = 2048;
+
+    private final BTreeNode root;
+    private final String[] keys;
+    private final int from;
+    private final int to;
+    /**
+     * The results, in which index i is set to true if keys[i] is in the tree.
+     */
+    private final boolean[] found;
+
+    /**
+     * Constructs a task that searches a range of keys.
+     *
+     * @param root  the root of the tree.
+     * @param keys  the keys to search.
+     * @param from  the index of the first key of the range.
+     * @param to    the index after the last key of the range.
+     * @param found the array in which to mark the keys that were found.
+     */
+    public ParallelSearchTask(BTreeNode root, String[] keys, int from, int to, boolean[] found) {
+        this.root = root;
+        this.keys = keys;
+        this.from = from;
+        this.to = to;
+        this.found = found;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                found[i] = root.search(keys[i].toLowerCase(), null);
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new ParallelSearchTask(root, keys, from, middle, found),
+                new ParallelSearchTask(root, keys, middle, to, found));
+    }
+}
@@ -0,0 +1,500 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Writes and restores binary snapshots of a BloomFilter, a HashTable and a BTree through NIO channels.
+ * A snapshot holds the structure's arrays as they are in memory, so restoring it reads them in bulk,
+ * without reading the passwords from their text files and hashing them again.
+ * <p>
+ * Every snapshot starts with a magic number of it's structure and a version, and its numbers are big endian.
+ * <ul>
+ * <li>BloomFilter: m1, the amount of hash functions, the alpha and beta of each function,
+ * and the table packed as 64 bits per long.</li>
+ * <li>HashTable: m2, the amount of keys, the amount of keys in each cell, and the keys cell after cell,
+ * each cell's keys in their order in it's list.</li>
+ * <li>BTree: t, the amount of nodes and of keys, and the nodes in breadth first order: the n of each node,
+ * a leaf flag of each node, the UTF-8 length of each key, and the UTF-8 bytes of all keys.
+ * The restored tree has the same layout as the written one, unless the written tree had keys deleted
+ * lazily and not compacted yet, which are left out of the snapshot instead.</li>
+ * </ul>
+ */
+public class Snapshot {
+    private static final int VERSION = 1;
+    private static final int BLOOM_FILTER_MAGIC = 0x42465350;
+    private static final int HASH_TABLE_MAGIC = 0x48545350;
+    private static final int BTREE_MAGIC = 0x42545350;
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * The fill factor of the tree written instead of a tree with keys deleted lazily.
+     */
+    private static final double BULK_LOAD_FILL_FACTOR = 0.75;
+
+    //BLOOM FILTER
+
+    /**
+     * Writes a snapshot of given bloom filter to given path.
+     *
+     * @param bloomFilter the bloom filter.
+     * @param path        the path of the snapshot.
+     * @throws UncheckedIOException if the snapshot can't be written.
+     */
+    public static void write(BloomFilter bloomFilter, String path) {
+        boolean[] table = bloomFilter.getBloomFilter();
+        long[] words = new long[(table.length + 63) >>> 6];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i]) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        try (FileChannel out = openForWrite(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(BLOOM_FILTER_MAGIC).putInt(VERSION);
+            writeInt(out, buffer, table.length);
+            writeInt(out, buffer, bloomFilter.getHashFunctionsList().getSize());
+            for (HashFunction function : bloomFilter.getHashFunctionsList()) {
+                writeInt(out, buffer, function.getAlpha());
+                writeInt(out, buffer, function.getBeta());
+            }
+            writeLongs(out, buffer, words);
+            flush(out, buffer);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Restores a bloom filter from the snapshot in given path.
+     *
+     * @param path the path of the snapshot.
+     * @return the restored bloom filter.
+     * @throws IllegalArgumentException if the file is not a snapshot of a bloom filter.
+     * @throws UncheckedIOException     if the snapshot can't be read.
+     */
+    public static BloomFilter readBloomFilter(String path) {
+        try (FileChannel in = openForRead(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            readHeader(in, buffer, BLOOM_FILTER_MAGIC, path);
+            boolean[] table = new boolean[readInt(in, buffer)];
+            int functionsAmount = readInt(in, buffer);
+            LinkedList<HashFunction> functions = new LinkedList<>();
+            for (int i = 0; i < functionsAmount; i++) {
+                int alpha = readInt(in, buffer);
+                functions.addLast(new HashFunction(alpha, readInt(in, buffer)));
+            }
+            long[] words = new long[(table.length + 63) >>> 6];
+            readLongs(in, buffer, words);
+            for (int i = 0; i < table.length; i++) {
+                table[i] = (words[i >>> 6] & 1L << i) != 0;
+            }
+            return new BloomFilter(table, new HashFunctionsList(functions));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //HASH TABLE
+
+    /**
+     * Writes a snapshot of given hash table to given path.
+     *
+     * @param hashTable the hash table.
+     * @param path      the path of the snapshot.
+     * @throws UncheckedIOException if the snapshot can't be written.
+     */
+    public static void write(HashTable hashTable, String path) {
+        int m2 = hashTable.getM2();
+        int[] cellSizes = new int[m2];
+        int keysAmount = 0;
+        for (int i = 0; i < m2; i++) {
+            cellSizes[i] = hashTable.getTableCell(i).getSize();
+            keysAmount += cellSizes[i];
+        }
+        int[] keys = new int[keysAmount];
+        int index = 0;
+        for (int i = 0; i < m2; i++) {
+            for (Integer key : hashTable.getTableCell(i)) {
+                keys[index++] = key;
+            }
+        }
+        try (FileChannel out = openForWrite(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(HASH_TABLE_MAGIC).putInt(VERSION);
+            writeInt(out, buffer, m2);
+            writeInt(out, buffer, keysAmount);
+            writeInts(out, buffer, cellSizes, m2);
+            writeInts(out, buffer, keys, keysAmount);
+            flush(out, buffer);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Restores a hash table from the snapshot in given path.
+     *
+     * @param path the path of the snapshot.
+     * @return the restored hash table.
+     * @throws IllegalArgumentException if the file is not a snapshot of a hash table.
+     * @throws UncheckedIOException     if the snapshot can't be read.
+     */
+    public static HashTable readHashTable(String path) {
+        try (FileChannel in = openForRead(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            readHeader(in, buffer, HASH_TABLE_MAGIC, path);
+            int m2 = readInt(in, buffer);
+            int[] keys = new int[readInt(in, buffer)];
+            int[] cellSizes = new int[m2];
+            readInts(in, buffer, cellSizes);
+            readInts(in, buffer, keys);
+            HashTable hashTable = new HashTable(Integer.toString(m2));
+            int index = 0;
+            for (int i = 0; i < m2; i++) {
+                HashList cell = hashTable.getTableCell(i);
+                for (int j = 0; j < cellSizes[i]; j++) {
+                    cell.addLast(keys[index++]);
+                }
+            }
+            if (index != keys.length) {
+                throw new IllegalArgumentException("Corrupted snapshot: " + path);
+            }
+            return hashTable;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //BTREE
+
+    /**
+     * Writes a snapshot of the keys of given tree to given path. The values of a tree used as a map
+     * are not written. The tree is not changed: if it has keys deleted lazily and not compacted yet,
+     * the snapshot holds a tree bulk loaded from it's other keys, whose layout differs from the tree's.
+     *
+     * @param tree the tree.
+     * @param path the path of the snapshot.
+     * @throws UncheckedIOException if the snapshot can't be written.
+     */
+    public static void write(BTree tree, String path) {
+        //The tombstones are checked before the root is taken, since a compaction publishes the root before it removes them
+        BTreeNode root;
+        if (tree.getTombstonesAmount() > 0) {
+            root = new BTree(Integer.toString(tree.getT()), tree.getSortedKeys(), BULK_LOAD_FILL_FACTOR).getRoot();
+        }
+        else {
+            root = tree.getRoot();
+        }
+        ArrayList<BTreeNode> nodes = new ArrayList<>();
+        nodes.add(root);
+        int keysAmount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            BTreeNode node = nodes.get(i);
+            keysAmount += node.getN();
+            if (!node.isLeaf()) {
+                for (int j = 0; j <= node.getN(); j++) {
+                    nodes.add(node.getChild(j));
+                }
+            }
+        }
+        try (FileChannel out = openForWrite(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(BTREE_MAGIC).putInt(VERSION);
+            writeInt(out, buffer, tree.getT());
+            writeInt(out, buffer, nodes.size());
+            writeInt(out, buffer, keysAmount);
+            for (BTreeNode node : nodes) {
+                writeInt(out, buffer, node.getN());
+            }
+            for (BTreeNode node : nodes) {
+                if (!buffer.hasRemaining()) {
+                    flush(out, buffer);
+                }
+                buffer.put((byte) (node.isLeaf() ? 1 : 0));
+            }
+            for (BTreeNode node : nodes) {
+                for (int i = 0; i < node.getN(); i++) {
+                    writeInt(out, buffer, utf8Length(node.getKey(i)));
+                }
+            }
+            for (BTreeNode node : nodes) {
+                for (int i = 0; i < node.getN(); i++) {
+                    byte[] key = node.getKey(i).getBytes(StandardCharsets.UTF_8);
+                    if (key.length != utf8Length(node.getKey(i))) {
+                        throw new IllegalArgumentException("Key is not valid UTF-16: " + node.getKey(i));
+                    }
+                    writeBytes(out, buffer, key);
+                }
+            }
+            flush(out, buffer);
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Restores a tree from the snapshot in given path.
+     *
+     * @param path the path of the snapshot.
+     * @return the restored tree.
+     * @throws IllegalArgumentException if the file is not a snapshot of a tree.
+     * @throws UncheckedIOException     if the snapshot can't be read.
+     */
+    public static BTree readBTree(String path) {
+        try (FileChannel in = openForRead(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            readHeader(in, buffer, BTREE_MAGIC, path);
+            int t = readInt(in, buffer);
+            BTree tree = new BTree(Integer.toString(t));
+            tree.setRoot(readNodes(in, buffer, t, path));
+            return tree;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replaces the keys of given tree with the ones of the snapshot in given path,
+     * keeping the tree's modes.
+     *
+     * @param tree the tree to restore into.
+     * @param path the path of the snapshot.
+     * @throws IllegalArgumentException if the file is not a snapshot of a tree with the tree's t.
+     * @throws UncheckedIOException     if the snapshot can't be read.
+     */
+    public static void load(BTree tree, String path) {
+        try (FileChannel in = openForRead(path)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            readHeader(in, buffer, BTREE_MAGIC, path);
+            int t = readInt(in, buffer);
+            if (t != tree.getT()) {
+                throw new IllegalArgumentException("Snapshot t: " + t + " tree t: " + tree.getT());
+            }
+            tree.setRoot(readNodes(in, buffer, t, path));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the nodes of a tree's snapshot and links them, from the last one back to the root,
+     * so every node is filled after it's children.
+     *
+     * @param in     the channel of the snapshot.
+     * @param buffer the buffer of the channel.
+     * @param t      the t of the tree.
+     * @param path   the path of the snapshot.
+     * @return the root of the restored tree.
+     */
+    private static BTreeNode readNodes(FileChannel in, ByteBuffer buffer, int t, String path) throws IOException {
+        int[] n = new int[readInt(in, buffer)];
+        int[] keyLengths = new int[readInt(in, buffer)];
+        readInts(in, buffer, n);
+        byte[] leaf = new byte[n.length];
+        readBytes(in, buffer, leaf);
+        readInts(in, buffer, keyLengths);
+        long keyBytes = 0;
+        for (int length : keyLengths) {
+            keyBytes += length;
+        }
+        if (keyBytes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Snapshot of " + keyBytes + " key bytes is too large");
+        }
+        byte[] bytes = new byte[(int) keyBytes];
+        readBytes(in, buffer, bytes);
+        String[] keys = new String[keyLengths.length];
+        int offset = 0;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new String(bytes, offset, keyLengths[i], StandardCharsets.UTF_8);
+            offset += keyLengths[i];
+        }
+
+        int[] keyStarts = new int[n.length];
+        int[] childStarts = new int[n.length];
+        int keyIndex = 0;
+        int childIndex = 1;
+        for (int i = 0; i < n.length; i++) {
+            keyStarts[i] = keyIndex;
+            keyIndex += n[i];
+            if (leaf[i] == 0) {
+                childStarts[i] = childIndex;
+                childIndex += n[i] + 1;
+            }
+        }
+        if (n.length == 0 || keyIndex != keys.length || childIndex != n.length) {
+            throw new IllegalArgumentException("Corrupted snapshot: " + path);
+        }
+        BTreeNode[] nodes = new BTreeNode[n.length];
+        for (int i = n.length - 1; i >= 0; i--) {
+            nodes[i] = new BTreeNode(t);
+            nodes[i].fill(keys, keyStarts[i], n[i], leaf[i] == 0 ? nodes : null, childStarts[i]);
+        }
+        return nodes[0];
+    }
+
+    /**
+     * Calculates the length of given key in UTF-8 without encoding it.
+     *
+     * @param key the key.
+     * @return the amount of bytes in the key's UTF-8 encoding.
+     */
+    private static int utf8Length(String key) {
+        int length = key.length();
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (Character.isSurrogate(c)) {
+                //Each half of a pair adds one byte, for four bytes per pair
+                length++;
+            }
+            else if (c >= 0x800) {
+                length += 2;
+            }
+            else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    //CHANNELS
+
+    private static FileChannel openForWrite(String path) throws IOException {
+        return FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static FileChannel openForRead(String path) throws IOException {
+        return FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+    }
+
+    /**
+     * Writes the bytes in given buffer to the channel, and clears the buffer.
+     */
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void writeInt(FileChannel out, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            flush(out, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void writeInts(FileChannel out, ByteBuffer buffer, int[] values, int count) throws IOException {
+        int i = 0;
+        while (i < count) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(out, buffer);
+            }
+            int chunk = Math.min(count - i, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, i, chunk);
+            buffer.position(buffer.position() + chunk * Integer.BYTES);
+            i += chunk;
+        }
+    }
+
+    private static void writeLongs(FileChannel out, ByteBuffer buffer, long[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (buffer.remaining() < Long.BYTES) {
+                flush(out, buffer);
+            }
+            int chunk = Math.min(values.length - i, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(values, i, chunk);
+            buffer.position(buffer.position() + chunk * Long.BYTES);
+            i += chunk;
+        }
+    }
+
+    private static void writeBytes(FileChannel out, ByteBuffer buffer, byte[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (!buffer.hasRemaining()) {
+                flush(out, buffer);
+            }
+            int chunk = Math.min(values.length - i, buffer.remaining());
+            buffer.put(values, i, chunk);
+            i += chunk;
+        }
+    }
+
+    /**
+     * Reads more of the channel into given buffer, which is in read mode, until it holds
+     * at least given amount of bytes.
+     *
+     * @throws IllegalArgumentException if the channel ends first.
+     */
+    private static void fill(FileChannel in, ByteBuffer buffer, int needed) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (in.read(buffer) < 0) {
+                throw new IllegalArgumentException("Snapshot ended unexpectedly");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void readHeader(FileChannel in, ByteBuffer buffer, int magic, String path) throws IOException {
+        fill(in, buffer, 2 * Integer.BYTES);
+        if (buffer.getInt() != magic || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a snapshot of the structure: " + path);
+        }
+    }
+
+    private static int readInt(FileChannel in, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            fill(in, buffer, Integer.BYTES);
+        }
+        return buffer.getInt();
+    }
+
+    private static void readInts(FileChannel in, ByteBuffer buffer, int[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (buffer.remaining() < Integer.BYTES) {
+                fill(in, buffer, Integer.BYTES);
+            }
+            int chunk = Math.min(values.length - i, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(values, i, chunk);
+            buffer.position(buffer.position() + chunk * Integer.BYTES);
+            i += chunk;
+        }
+    }
+
+    private static void readLongs(FileChannel in, ByteBuffer buffer, long[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (buffer.remaining() < Long.BYTES) {
+                fill(in, buffer, Long.BYTES);
+            }
+            int chunk = Math.min(values.length - i, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().get(values, i, chunk);
+            buffer.position(buffer.position() + chunk * Long.BYTES);
+            i += chunk;
+        }
+    }
+
+    private static void readBytes(FileChannel in, ByteBuffer buffer, byte[] values) throws IOException {
+        int i = 0;
+        while (i < values.length) {
+            if (!buffer.hasRemaining()) {
+                fill(in, buffer, 1);
+            }
+            int chunk = Math.min(values.length - i, buffer.remaining());
+            buffer.get(values, i, chunk);
+            i += chunk;
+        }
+    }
+}
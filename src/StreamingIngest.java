@@ -0,0 +1,244 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tails an append only file of bad passwords, one per line, and applies the lines appended to it
+ * to a BTree, a BloomFilter and a HashTable in micro-batches, the way createFullTree and updateTable
+ * apply a whole file. Only a fixed size read buffer and one batch of lines are held in memory,
+ * however long the file grows. A line is applied once it's line break was written, so a line
+ * which is still being written waits for the next poll. Lines are decoded in the default charset,
+ * like UsefulFunctions reads them, which must encode the line break as a single '\n' byte.
+ * <p>
+ * The offset after the last applied line is exposed, so a restarted ingest can resume from it
+ * instead of applying the file again. The offset should be saved together with the state of the
+ * structures it was applied to, such as in the same Snapshot directory.
+ * <p>
+ * The structures are changed by the thread that polls. Other threads may search the tree
+ * meanwhile if it is in copy-on-write mode.
+ */
+public class StreamingIngest implements Runnable, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * How long run waits before polling again when no new lines were appended.
+     */
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    //FIELDS
+
+    private final FileChannel channel;
+    private final BTree tree;
+    private final BloomFilter bloomFilter;
+    private final HashTable hashTable;
+    /**
+     * The lines of the current micro-batch.
+     */
+    private final String[] batch;
+    /**
+     * Bytes read from the file and not parsed yet, in read mode. Grows only for a line longer than it.
+     */
+    private ByteBuffer buffer;
+    /**
+     * The offset in the file after the bytes read into the buffer.
+     */
+    private long readOffset;
+    /**
+     * The offset in the file after the last applied line.
+     */
+    private volatile long offset;
+    private volatile boolean closed;
+
+    /**
+     * Opens the file in given path for tailing, from given offset.
+     *
+     * @param path        the path of the file.
+     * @param startOffset the offset to start from: 0, or an offset returned by getOffset.
+     * @param batchSize   the most lines applied in one micro-batch.
+     * @param tree        the tree to insert the passwords to, or null.
+     * @param bloomFilter the bloom filter to add the passwords to, or null.
+     * @param hashTable   the hash table to add the passwords to, or null.
+     * @throws UncheckedIOException if the file can't be opened.
+     */
+    public StreamingIngest(String path, long startOffset, int batchSize, BTree tree, BloomFilter bloomFilter, HashTable hashTable) {
+        if (startOffset < 0) {
+            throw new IllegalArgumentException("Start offset: " + startOffset);
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size: " + batchSize);
+        }
+        try {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.tree = tree;
+        this.bloomFilter = bloomFilter;
+        this.hashTable = hashTable;
+        batch = new String[batchSize];
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        readOffset = startOffset;
+        offset = startOffset;
+    }
+
+    /**
+     * Gets the offset in the file after the last applied line, from which a restarted ingest resumes.
+     *
+     * @return the offset after the last applied line.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Applies all complete lines appended to the file since the last poll, in micro-batches.
+     * Empty lines are skipped.
+     *
+     * @return the amount of lines applied.
+     * @throws IllegalStateException if the file was truncated below the read offset.
+     * @throws UncheckedIOException  if the file can't be read.
+     */
+    public synchronized int poll() {
+        if (closed) {
+            return 0;
+        }
+        int applied = 0;
+        int count = 0;
+        long lineEnd = offset;
+        try {
+            while (true) {
+                int lineBreak = findLineBreak();
+                if (lineBreak < 0) {
+                    if (!readMore()) {
+                        break;
+                    }
+                    continue;
+                }
+                String line = decodeLine(lineBreak);
+                lineEnd += lineBreak - buffer.position() + 1;
+                buffer.position(lineBreak + 1);
+                if (!line.isEmpty()) {
+                    batch[count++] = line;
+                }
+                if (count == batch.length) {
+                    applyBatch(count);
+                    applied += count;
+                    count = 0;
+                    offset = lineEnd;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        applyBatch(count);
+        applied += count;
+        offset = lineEnd;
+        return applied;
+    }
+
+    /**
+     * Polls the file until the ingest is closed, waiting between polls that found no new lines.
+     */
+    @Override
+    public void run() {
+        while (!closed) {
+            if (poll() == 0) {
+                try {
+                    Thread.sleep(POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the lines of the current micro-batch to the structures.
+     *
+     * @param count the amount of lines in the batch.
+     */
+    private void applyBatch(int count) {
+        for (int i = 0; i < count; i++) {
+            if (tree != null) {
+                tree.insert(batch[i]);
+            }
+            if (bloomFilter != null || hashTable != null) {
+                int key = UsefulFunctions.convertToKey(batch[i]);
+                if (bloomFilter != null) {
+                    bloomFilter.addKey(key);
+                }
+                if (hashTable != null) {
+                    hashTable.addKey(key);
+                }
+            }
+            batch[i] = null;
+        }
+    }
+
+    /**
+     * Finds the next line break in the buffer.
+     *
+     * @return the index of the line break in the buffer, or -1 if there is none.
+     */
+    private int findLineBreak() {
+        byte[] bytes = buffer.array();
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the line from the buffer's position to given line break, without a carriage return before it.
+     *
+     * @param lineBreak the index of the line break.
+     * @return the line.
+     */
+    private String decodeLine(int lineBreak) {
+        int end = lineBreak;
+        if (end > buffer.position() && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        return new String(buffer.array(), buffer.position(), end - buffer.position(), Charset.defaultCharset());
+    }
+
+    /**
+     * Reads bytes appended to the file into the buffer, after the bytes not parsed yet.
+     * The buffer is doubled only if it is full of a single line.
+     *
+     * @return true if bytes were read, or false if there are no new bytes.
+     */
+    private boolean readMore() throws IOException {
+        if (channel.size() < readOffset) {
+            throw new IllegalStateException("The file was truncated below offset " + readOffset);
+        }
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        int read = channel.read(buffer, readOffset);
+        buffer.flip();
+        if (read <= 0) {
+            return false;
+        }
+        readOffset += read;
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+}
@@ -75,6 +75,24 @@ public class UsefulFunctions {
         return null;
     }
 
+    /**
+     * Receives a path to a .txt file and creates an array of the strings in the file.
+     * @param path the from which to read the strings.
+     * @return an array of Strings, or null if the file couldn't be read.
+     */
+    public static String[] createStringArrayFromFile(String path) {
+        LinkedList<String> stringList = createStringListFromFile(path);
+        if (stringList == null) {
+            return null;
+        }
+        String[] strings = new String[stringList.getSize()];
+        int index = 0;
+        for (String string : stringList) {
+            strings[index] = string;
+            index++;
+        }
+        return strings;
+    }
 
     /**
      * Converts a LinkedList of strings into a LinkedList of Integer keys using horner's rule
@@ -85,24 +103,27 @@ public class UsefulFunctions {
         if (listS == null) {
             throw new NullPointerException("Argument is null");
         }
-        String pass;
-        int length; int ascii; int[] polynomial;
-
         LinkedList<Integer> keysList = new LinkedList<>();
-        for(int i = 0; i < listS.getSize(); i++) {
-            pass = listS.get(i);
-            length = pass.length();
-            polynomial = new int[length];
-            for(int j = 0; j < pass.length(); j++) {
-                ascii = (int) pass.charAt(j);
-                polynomial[j] = ascii;
-            }
-
-            keysList.addLast(horner(polynomial,length));
+        for(String pass : listS) {
+            keysList.addLast(convertToKey(pass));
         }
         return keysList;
     }
 
+    /**
+     * Converts a string into an Integer key using horner's rule
+     * @param pass the string to convert, which is not empty.
+     * @return the key of the string.
+     */
+    public static int convertToKey(String pass) {
+        int length = pass.length();
+        int[] polynomial = new int[length];
+        for(int j = 0; j < length; j++) {
+            polynomial[j] = (int) pass.charAt(j);
+        }
+        return horner(polynomial, length);
+    }
+
     /**
      * Receives an array with coefficients and value and calculates.
      * @param polynomial an int array holding the ascii values of the letters.
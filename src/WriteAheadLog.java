@@ -0,0 +1,335 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * An append only log of insert and delete operations on keys, which makes them durable.
+ * <p>
+ * Every record holds the length of the key, a CRC32 of the rest of the record, the operation
+ * and the key's UTF-8 bytes. Records are appended to an in memory buffer, and commit waits until
+ * they are forced to the disk. Commits are grouped: the first committer writes and forces every
+ * record appended so far with a single fsync, while records appended meanwhile go to a second
+ * buffer and are forced together by the next committer.
+ * <p>
+ * Positions in the log are counted in bytes since the log was opened, and keep growing
+ * when the log is truncated, so a committer waiting on a position is never confused by a truncation.
+ * <p>
+ * If records can't be written or forced, the log fails: the records may be partly on the disk,
+ * so every later append, commit and truncate throws, and the log must be opened again,
+ * whose replay cuts off the partly written records.
+ */
+public class WriteAheadLog implements Closeable {
+    public static final byte INSERT = 1;
+    public static final byte DELETE = 2;
+    /**
+     * The size of a record without it's key: the key's length, the CRC and the operation.
+     */
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    //FIELDS
+
+    private final FileChannel channel;
+    /**
+     * The records appended and not written yet.
+     */
+    private ByteBuffer pending;
+    /**
+     * The buffer written by the current committer, which is swapped with pending when it is done.
+     */
+    private ByteBuffer spare;
+    private final CRC32 crc = new CRC32();
+    /**
+     * The position after the last appended record.
+     */
+    private long appendedPosition;
+    /**
+     * The position up to which all records are forced to the disk.
+     */
+    private long durablePosition;
+    /**
+     * Whether a committer is writing and forcing records right now.
+     */
+    private boolean syncing;
+    /**
+     * The error that failed the log, or null if it didn't fail.
+     */
+    private IOException failure;
+
+    /**
+     * Opens the log in given path, or creates an empty log if the file doesn't exist.
+     * Records already in the log should be replayed before new ones are appended.
+     *
+     * @param path the path of the log's file.
+     * @throws UncheckedIOException if the file can't be opened.
+     */
+    public WriteAheadLog(String path) {
+        try {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pending = ByteBuffer.allocate(BUFFER_SIZE);
+        spare = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Gets the position after the last appended record, which commit can wait on.
+     *
+     * @return the position after the last appended record.
+     */
+    public synchronized long getAppendedPosition() {
+        return appendedPosition;
+    }
+
+    /**
+     * Gets the size of the log's file.
+     *
+     * @return the size of the file in bytes.
+     */
+    public long getFileSize() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //REPLAY
+
+    /**
+     * Reads all records in the log in order and passes their keys to the consumer of their operation.
+     * A record that was only partly written, or that fails it's CRC, ends the log: it is a write that
+     * was never committed, so it and everything after it are cut off the file.
+     *
+     * @param inserts the consumer of the inserted keys.
+     * @param deletes the consumer of the deleted keys.
+     * @return the amount of records replayed.
+     * @throws UncheckedIOException if the file can't be read.
+     */
+    public synchronized int replay(Consumer<String> inserts, Consumer<String> deletes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.flip();
+            long position = 0;
+            long end = channel.size();
+            int replayed = 0;
+            channel.position(0);
+            boolean valid = true;
+            while (valid && position < end) {
+                if (buffer.remaining() < RECORD_HEADER_SIZE && !fillBuffer(buffer, RECORD_HEADER_SIZE)) {
+                    break;
+                }
+                int length = buffer.getInt(buffer.position());
+                if (length < 0 || length > end - position - RECORD_HEADER_SIZE) {
+                    break;
+                }
+                if (buffer.capacity() < RECORD_HEADER_SIZE + length) {
+                    ByteBuffer larger = ByteBuffer.allocate(RECORD_HEADER_SIZE + length);
+                    larger.put(buffer);
+                    larger.flip();
+                    buffer = larger;
+                }
+                if (buffer.remaining() < RECORD_HEADER_SIZE + length && !fillBuffer(buffer, RECORD_HEADER_SIZE + length)) {
+                    break;
+                }
+                length = buffer.getInt();
+                int checksum = buffer.getInt();
+                byte operation = buffer.get();
+                byte[] key = new byte[length];
+                buffer.get(key);
+                crc.reset();
+                crc.update(operation);
+                crc.update(key);
+                valid = (int) crc.getValue() == checksum && (operation == INSERT || operation == DELETE);
+                if (valid) {
+                    String keyString = new String(key, StandardCharsets.UTF_8);
+                    (operation == INSERT ? inserts : deletes).accept(keyString);
+                    position += RECORD_HEADER_SIZE + length;
+                    replayed++;
+                }
+            }
+            if (position < end) {
+                channel.truncate(position);
+                channel.force(false);
+            }
+            channel.position(position);
+            return replayed;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads more of the file into given buffer, which is in read mode, until it holds
+     * at least given amount of bytes.
+     *
+     * @param buffer the buffer to fill.
+     * @param needed the amount of bytes needed in the buffer.
+     * @return true if the buffer holds the needed bytes, or false if the file ended first.
+     */
+    private boolean fillBuffer(ByteBuffer buffer, int needed) throws IOException {
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    //APPEND
+
+    /**
+     * Appends a record of an operation on given key. The record is not durable until
+     * a commit of the returned position returns.
+     *
+     * @param operation INSERT or DELETE.
+     * @param key       the key.
+     * @return the position after the record.
+     * @throws UncheckedIOException if the log failed.
+     */
+    public synchronized long append(byte operation, String key) {
+        if (operation != INSERT && operation != DELETE) {
+            throw new IllegalArgumentException("Operation: " + operation);
+        }
+        checkFailure();
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int recordSize = RECORD_HEADER_SIZE + bytes.length;
+        if (pending.remaining() < recordSize) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + recordSize));
+            pending.flip();
+            pending = larger.put(pending);
+        }
+        crc.reset();
+        crc.update(operation);
+        crc.update(bytes);
+        pending.putInt(bytes.length).putInt((int) crc.getValue()).put(operation).put(bytes);
+        appendedPosition += recordSize;
+        return appendedPosition;
+    }
+
+    /**
+     * Waits until all records up to given position are forced to the disk.
+     * If no other committer is forcing records, this one writes every pending record,
+     * including ones appended by other threads, and forces them with one fsync.
+     *
+     * @param position the position to wait on, as returned by append.
+     * @throws UncheckedIOException if the records can't be written, or the log failed.
+     */
+    public void commit(long position) {
+        ByteBuffer batch;
+        long batchEnd;
+        synchronized (this) {
+            boolean interrupted = false;
+            while (syncing && durablePosition < position) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (durablePosition >= position) {
+                return;
+            }
+            checkFailure();
+            syncing = true;
+            batch = pending;
+            batchEnd = appendedPosition;
+            pending = spare;
+        }
+        IOException error = null;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            synchronized (this) {
+                if (error == null) {
+                    batch.clear();
+                    spare = batch;
+                    durablePosition = batchEnd;
+                }
+                else {
+                    //The batch's records are not durable, so no position after them may ever become durable
+                    failure = error;
+                }
+                syncing = false;
+                notifyAll();
+            }
+        }
+        if (error != null) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Throws if the log failed. Must be called while holding the log's lock.
+     *
+     * @throws UncheckedIOException if the log failed.
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("The log failed", failure);
+        }
+    }
+
+    /**
+     * Empties the log, after all of it's records were made durable elsewhere, by a checkpoint.
+     * Records appended and not committed yet are dropped as well, so no other thread may append
+     * between the checkpoint and the truncation.
+     *
+     * @throws UncheckedIOException if the file can't be truncated, or the log failed.
+     */
+    public synchronized void truncate() {
+        boolean interrupted = false;
+        while (syncing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+        try {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(false);
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        }
+        pending.clear();
+        durablePosition = appendedPosition;
+        notifyAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            commit(getAppendedPosition());
+        } finally {
+            channel.close();
+        }
+    }
+}